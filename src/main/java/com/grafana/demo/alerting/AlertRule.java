@@ -0,0 +1,156 @@
+package com.grafana.demo.alerting;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An alerting rule from a Prometheus rule file, reduced to the subset of
+ * PromQL the validator can evaluate on its own: a single instant vector
+ * selector compared against a number, e.g.
+ * {@code system_cpu_usage{application="grafana-demo-1"} > 0.8}.
+ *
+ * @param name       alert name
+ * @param expression original PromQL expression
+ * @param metric     selected metric name
+ * @param matchers   label matchers of the selector
+ * @param operator   comparison operator
+ * @param threshold  number the samples are compared with
+ * @param forDuration how long the expression has to hold before the alert fires
+ */
+public record AlertRule(String name, String expression, String metric, List<LabelMatcher> matchers,
+                        Operator operator, double threshold, Duration forDuration) {
+
+    private static final Pattern EXPRESSION = Pattern.compile(
+            "\\s*([a-zA-Z_:][a-zA-Z0-9_:]*)\\s*(?:\\{(.*)})?\\s*(==|!=|>=|<=|>|<)\\s*([-+]?[0-9.]+(?:[eE][-+]?[0-9]+)?)\\s*");
+    private static final Pattern MATCHER = Pattern.compile(
+            "\\s*([a-zA-Z_][a-zA-Z0-9_]*)\\s*(=~|!~|!=|=)\\s*\"((?:[^\"\\\\]|\\\\.)*)\"\\s*(?:,|$)");
+    private static final Pattern DURATION = Pattern.compile("(\\d+)(ms|s|m|h|d|w|y)");
+
+    /**
+     * Builds a rule from one entry of a rule file's {@code rules} list
+     *
+     * @throws IllegalArgumentException if the expression is outside the supported subset
+     */
+    static AlertRule parse(String name, String expression, String forDuration) {
+        Matcher matcher = EXPRESSION.matcher(expression);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Unsupported expression: " + expression);
+        }
+        return new AlertRule(name, expression, matcher.group(1), parseMatchers(matcher.group(2)),
+                Operator.from(matcher.group(3)), Double.parseDouble(matcher.group(4)),
+                forDuration != null ? parseDuration(forDuration) : Duration.ZERO);
+    }
+
+    private static List<LabelMatcher> parseMatchers(String selector) {
+        List<LabelMatcher> matchers = new ArrayList<>();
+        if (selector == null || selector.isBlank()) {
+            return matchers;
+        }
+        Matcher matcher = MATCHER.matcher(selector);
+        int position = 0;
+        while (position < selector.length() && matcher.find(position) && matcher.start() == position) {
+            matchers.add(new LabelMatcher(matcher.group(1), matcher.group(2),
+                    matcher.group(3).replace("\\\"", "\"").replace("\\\\", "\\")));
+            position = matcher.end();
+        }
+        if (position < selector.length()) {
+            throw new IllegalArgumentException("Unsupported label matchers: " + selector);
+        }
+        return matchers;
+    }
+
+    /**
+     * Parses a Prometheus duration such as {@code 5s} or {@code 1m30s}
+     */
+    static Duration parseDuration(String value) {
+        Matcher matcher = DURATION.matcher(value.trim());
+        Duration duration = Duration.ZERO;
+        int position = 0;
+        while (matcher.find() && matcher.start() == position) {
+            long amount = Long.parseLong(matcher.group(1));
+            duration = duration.plus(switch (matcher.group(2)) {
+                case "ms" -> Duration.ofMillis(amount);
+                case "s" -> Duration.ofSeconds(amount);
+                case "m" -> Duration.ofMinutes(amount);
+                case "h" -> Duration.ofHours(amount);
+                case "d" -> Duration.ofDays(amount);
+                case "w" -> Duration.ofDays(amount * 7);
+                default -> Duration.ofDays(amount * 365);
+            });
+            position = matcher.end();
+        }
+        if (position == 0 || position < value.trim().length()) {
+            throw new IllegalArgumentException("Invalid duration: " + value);
+        }
+        return duration;
+    }
+
+    /**
+     * Whether a sample is selected by this rule and satisfies its comparison
+     */
+    boolean isActive(PrometheusText.Sample sample) {
+        return selects(sample) && operator.test(sample.value(), threshold);
+    }
+
+    boolean selects(PrometheusText.Sample sample) {
+        if (!sample.name().equals(metric)) {
+            return false;
+        }
+        for (LabelMatcher matcher : matchers) {
+            if (!matcher.matches(sample.labels())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A single {@code label op "value"} matcher; a missing label matches as the empty string
+     */
+    public record LabelMatcher(String label, String type, String value) {
+
+        boolean matches(Map<String, String> labels) {
+            String actual = labels.getOrDefault(label, "");
+            return switch (type) {
+                case "=" -> actual.equals(value);
+                case "!=" -> !actual.equals(value);
+                case "=~" -> actual.matches(value);
+                default -> !actual.matches(value);
+            };
+        }
+    }
+
+    public enum Operator {
+        EQ("=="), NE("!="), GE(">="), LE("<="), GT(">"), LT("<");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Operator from(String symbol) {
+            for (Operator operator : values()) {
+                if (operator.symbol.equals(symbol)) {
+                    return operator;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operator: " + symbol);
+        }
+
+        boolean test(double value, double threshold) {
+            return switch (this) {
+                case EQ -> value == threshold;
+                case NE -> value != threshold;
+                case GE -> value >= threshold;
+                case LE -> value <= threshold;
+                case GT -> value > threshold;
+                case LT -> value < threshold;
+            };
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.grafana.demo.alerting;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.ThreadMXBean;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Checks that the load produced by the simulators actually fires and clears
+ * the Prometheus alerting rules, and how quickly.
+ * <p>
+ * A validation run samples the Prometheus registry in-process at a high
+ * frequency and adds the target labels the Prometheus scrape config would
+ * attach (plus a synthetic {@code up} series). Every selected rule is
+ * evaluated twice with Prometheus' pending/firing semantics: as Prometheus
+ * would, at the evaluation interval on the latest sample taken at the scrape
+ * interval, which gives the reported times; and on every high-frequency
+ * sample, which shows how much of that is owed to the intervals. Rules that
+ * cannot fire in-process, or select no series at all, are reported as
+ * unevaluable. The simulator profile is whatever the application was started
+ * with; it is recorded in the report. The cost of the sampling itself is
+ * measured on the validation thread and reported alongside.
+ */
+@Service
+public class AlertRuleValidator {
+    private static final Logger logger = LoggerFactory.getLogger(AlertRuleValidator.class);
+
+    private static final List<String> PROFILE_PROPERTIES = List.of(
+            "test.cpu", "test.memory", "test.http", "test.retention", "memory.population", "sort.algorithms");
+
+    /**
+     * Gauges backed by the OS MXBean's CPU load, which is computed over the
+     * time since its previous read
+     */
+    private static final Set<String> CPU_LOAD_METRICS = Set.of("system_cpu_usage", "process_cpu_usage");
+
+    private final PrometheusMeterRegistry registry;
+    private final Environment environment;
+    private final ObjectMapper objectMapper;
+    private final Path rulesFile;
+    private final Map<String, String> targetLabels;
+    private final long defaultIntervalMillis;
+    private final long scrapeIntervalMillis;
+    private final long evaluationIntervalMillis;
+    private final long defaultDurationSeconds;
+    private final boolean autoStart;
+    private final String reportFile;
+
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private volatile Thread worker;
+    private volatile boolean stopRequested;
+    private volatile ValidationRun current;
+    private volatile AlertValidationReport lastReport;
+
+    public AlertRuleValidator(PrometheusMeterRegistry registry,
+                              Environment environment,
+                              ObjectMapper objectMapper,
+                              @Value("${alerts.validation.rules-file:monitoring/prometheus/alert_rules.yml}") String rulesFile,
+                              @Value("${alerts.validation.target-labels:application=grafana-demo-1}") List<String> targetLabels,
+                              @Value("${alerts.validation.interval-ms:100}") long defaultIntervalMillis,
+                              @Value("${alerts.validation.scrape-interval-ms:3000}") long scrapeIntervalMillis,
+                              @Value("${alerts.validation.evaluation-interval-ms:5000}") long evaluationIntervalMillis,
+                              @Value("${alerts.validation.duration-seconds:120}") long defaultDurationSeconds,
+                              @Value("${alerts.validation.auto-start:false}") boolean autoStart,
+                              @Value("${alerts.validation.report-file:}") String reportFile) {
+        this.registry = registry;
+        this.environment = environment;
+        this.objectMapper = objectMapper;
+        this.rulesFile = Paths.get(rulesFile);
+        this.targetLabels = new LinkedHashMap<>();
+        for (String label : targetLabels) {
+            int equals = label.indexOf('=');
+            if (equals > 0) {
+                this.targetLabels.put(label.substring(0, equals).trim(), label.substring(equals + 1).trim());
+            }
+        }
+        this.defaultIntervalMillis = defaultIntervalMillis;
+        this.scrapeIntervalMillis = Math.max(1, scrapeIntervalMillis);
+        this.evaluationIntervalMillis = Math.max(1, evaluationIntervalMillis);
+        this.defaultDurationSeconds = defaultDurationSeconds;
+        this.autoStart = autoStart;
+        this.reportFile = reportFile;
+    }
+
+    /**
+     * Starts a validation run if {@code alerts.validation.auto-start} is set.
+     * Called once the simulators have been launched.
+     */
+    public void autoStart() {
+        if (!autoStart) {
+            return;
+        }
+        try {
+            start(null, null, List.of());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not start alert validation", e);
+        }
+    }
+
+    /**
+     * Starts evaluating the selected rules (all rules of the file if none are
+     * given) in the background
+     */
+    public synchronized Map<String, Object> start(Long durationSeconds, Long intervalMillis, List<String> ruleNames)
+            throws IOException {
+        if (worker != null && worker.isAlive()) {
+            throw new IllegalStateException("An alert validation is already running");
+        }
+        long duration = TimeUnit.SECONDS.toMillis(durationSeconds != null ? durationSeconds : defaultDurationSeconds);
+        long interval = Math.max(1, intervalMillis != null ? intervalMillis : defaultIntervalMillis);
+
+        Map<String, String> unsupported = new LinkedHashMap<>();
+        List<AlertRule> rules = loadRules(ruleNames, unsupported);
+        if (rules.isEmpty()) {
+            throw new IllegalArgumentException("No supported rules selected from " + rulesFile);
+        }
+
+        Map<String, String> profile = new LinkedHashMap<>();
+        for (String property : PROFILE_PROPERTIES) {
+            profile.put(property, environment.getProperty(property, ""));
+        }
+
+        ValidationRun run = new ValidationRun(rules, unsupported, profile, duration, interval,
+                scrapeIntervalMillis, evaluationIntervalMillis);
+        current = run;
+        stopRequested = false;
+        worker = new Thread(() -> execute(run), "alert-validator");
+        worker.setDaemon(true);
+        worker.start();
+
+        logger.info("Validating {} alert rules for {} s, sampling every {} ms, scraping every {} ms, "
+                        + "evaluating every {} ms", rules.size(), TimeUnit.MILLISECONDS.toSeconds(duration), interval,
+                scrapeIntervalMillis, evaluationIntervalMillis);
+        return status();
+    }
+
+    /**
+     * Ends the running validation early and returns its report
+     */
+    public AlertValidationReport stop() throws InterruptedException {
+        Thread running = worker;
+        if (running == null || !running.isAlive()) {
+            throw new IllegalStateException("No alert validation is running");
+        }
+        stopRequested = true;
+        running.join();
+        return lastReport;
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        ValidationRun run = current;
+        boolean running = worker != null && worker.isAlive();
+        status.put("running", running);
+        status.put("rulesFile", rulesFile.toAbsolutePath().toString());
+        status.put("targetLabels", targetLabels);
+        if (running && run != null) {
+            status.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - run.startNanos));
+            status.put("durationMs", run.durationMillis);
+            status.put("rules", run.rules.stream().map(AlertRule::name).toList());
+        }
+        AlertValidationReport report = lastReport;
+        if (report != null) {
+            status.put("lastReportStartedAt", report.startedAt());
+        }
+        return status;
+    }
+
+    public AlertValidationReport lastReport() {
+        return lastReport;
+    }
+
+    private List<AlertRule> loadRules(List<String> names, Map<String, String> unsupported) throws IOException {
+        Map<String, Object> root;
+        try (Reader reader = Files.newBufferedReader(rulesFile)) {
+            root = new Yaml().load(reader);
+        }
+
+        List<AlertRule> rules = new ArrayList<>();
+        for (Map<String, Object> group : entries(root, "groups")) {
+            for (Map<String, Object> rule : entries(group, "rules")) {
+                String name = (String) rule.get("alert");
+                if (name == null || (!names.isEmpty() && !names.contains(name))) {
+                    // Recording rules and rules that were not asked for
+                    continue;
+                }
+                Object forDuration = rule.get("for");
+                try {
+                    rules.add(AlertRule.parse(name, String.valueOf(rule.get("expr")),
+                            forDuration != null ? forDuration.toString() : null));
+                } catch (IllegalArgumentException e) {
+                    unsupported.put(name, e.getMessage());
+                }
+            }
+        }
+        return rules;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> entries(Map<String, Object> parent, String key) {
+        Object value = parent != null ? parent.get(key) : null;
+        return value instanceof List<?> list ? (List<Map<String, Object>>) list : List.of();
+    }
+
+    private void execute(ValidationRun run) {
+        Set<String> metrics = new HashSet<>();
+        run.rules.forEach(rule -> metrics.add(rule.metric()));
+
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long allocatedStart = threads.getCurrentThreadAllocatedBytes();
+        long deadline = run.startNanos + TimeUnit.MILLISECONDS.toNanos(run.durationMillis);
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(run.intervalMillis);
+        long next = run.startNanos;
+        long nextScrapeMillis = 0;
+        long nextEvaluationMillis = 0;
+        List<PrometheusText.Sample> scraped = List.of();
+
+        while (!stopRequested && next < deadline) {
+            LockSupport.parkNanos(next - System.nanoTime());
+            long scrapeStart = System.nanoTime();
+            String text = registry.scrape();
+            long scrapeEnd = System.nanoTime();
+
+            List<PrometheusText.Sample> samples = withTargetLabels(PrometheusText.parse(text, metrics));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(scrapeStart - run.startNanos);
+            for (RuleState rule : run.states) {
+                rule.highResolution.evaluate(samples, elapsedMillis);
+            }
+            // What Prometheus would see: the latest scrape, evaluated at the evaluation interval
+            if (elapsedMillis >= nextScrapeMillis) {
+                scraped = samples;
+                nextScrapeMillis = nextTick(nextScrapeMillis, run.scrapeIntervalMillis, elapsedMillis);
+            }
+            if (elapsedMillis >= nextEvaluationMillis) {
+                for (RuleState rule : run.states) {
+                    rule.evaluated.evaluate(scraped, elapsedMillis);
+                }
+                nextEvaluationMillis = nextTick(nextEvaluationMillis, run.evaluationIntervalMillis, elapsedMillis);
+            }
+
+            run.recordScrape(scrapeEnd - scrapeStart, System.nanoTime() - scrapeEnd, text.length());
+            next += intervalNanos;
+            long now = System.nanoTime();
+            if (now - next > 0) {
+                // Skip missed ticks instead of scraping back to back to catch up
+                next += ((now - next) / intervalNanos + 1) * intervalNanos;
+            }
+        }
+
+        long cpuNanos = threads.getCurrentThreadCpuTime() - cpuStart;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedStart;
+        AlertValidationReport report = run.report(cpuNanos, allocated);
+        lastReport = report;
+        logReport(report);
+        writeReport(report);
+    }
+
+    private static long nextTick(long tick, long interval, long now) {
+        return tick + ((now - tick) / interval + 1) * interval;
+    }
+
+    private List<PrometheusText.Sample> withTargetLabels(List<PrometheusText.Sample> scraped) {
+        List<PrometheusText.Sample> samples = new ArrayList<>(scraped.size() + 1);
+        for (PrometheusText.Sample sample : scraped) {
+            Map<String, String> labels = new HashMap<>(sample.labels());
+            labels.putAll(targetLabels);
+            samples.add(new PrometheusText.Sample(sample.name(), labels, sample.value()));
+        }
+        // The scrape just succeeded, so the target is up
+        samples.add(new PrometheusText.Sample("up", targetLabels, 1));
+        return samples;
+    }
+
+    private void logReport(AlertValidationReport report) {
+        for (AlertValidationReport.RuleResult rule : report.rules()) {
+            if (rule.outcome() == AlertValidationReport.Outcome.UNEVALUABLE) {
+                logger.warn("Alert {} is unevaluable: {}", rule.name(), rule.reason());
+                continue;
+            }
+            logger.info("Alert {}: fired after {} ms ({} ms at full resolution), resolved after {} ms, {} firings, "
+                            + "max value {}", rule.name(), rule.timeToFireMs(), rule.highResolutionTimeToFireMs(),
+                    rule.timeToResolveMs(), rule.firings().size(), rule.maxValue());
+        }
+        report.notes().forEach(note -> logger.warn("Alert validation: {}", note));
+        AlertValidationReport.ScrapeOverhead overhead = report.overhead();
+        logger.info("Alert validation finished: {} scrapes, {} ms mean scrape, {}% CPU",
+                overhead.scrapes(), String.format("%.2f", overhead.meanScrapeMs()),
+                String.format("%.2f", overhead.cpuFraction() * 100));
+    }
+
+    private void writeReport(AlertValidationReport report) {
+        if (reportFile.isBlank()) {
+            return;
+        }
+        try {
+            Path file = Paths.get(reportFile);
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+            logger.info("Alert validation report written to {}", file.toAbsolutePath());
+        } catch (IOException e) {
+            logger.error("Could not write alert validation report", e);
+        }
+    }
+
+    /**
+     * State of one validation run, only touched by the validation thread once started
+     */
+    private static final class ValidationRun {
+        private final List<AlertRule> rules;
+        private final List<RuleState> states;
+        private final Map<String, String> unsupported;
+        private final Map<String, String> profile;
+        private final long durationMillis;
+        private final long intervalMillis;
+        private final long scrapeIntervalMillis;
+        private final long evaluationIntervalMillis;
+        private final long startedAt = System.currentTimeMillis();
+        private final long startNanos = System.nanoTime();
+
+        private long scrapes;
+        private long scrapeNanos;
+        private long maxScrapeNanos;
+        private long evaluationNanos;
+        private long scrapeBytes;
+
+        ValidationRun(List<AlertRule> rules, Map<String, String> unsupported, Map<String, String> profile,
+                      long durationMillis, long intervalMillis, long scrapeIntervalMillis,
+                      long evaluationIntervalMillis) {
+            this.rules = rules;
+            this.states = rules.stream().map(RuleState::new).toList();
+            this.unsupported = unsupported;
+            this.profile = profile;
+            this.durationMillis = durationMillis;
+            this.intervalMillis = intervalMillis;
+            this.scrapeIntervalMillis = scrapeIntervalMillis;
+            this.evaluationIntervalMillis = evaluationIntervalMillis;
+        }
+
+        void recordScrape(long scrape, long evaluation, int bytes) {
+            scrapes++;
+            scrapeNanos += scrape;
+            maxScrapeNanos = Math.max(maxScrapeNanos, scrape);
+            evaluationNanos += evaluation;
+            scrapeBytes += bytes;
+        }
+
+        AlertValidationReport report(long cpuNanos, long allocatedBytes) {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            long count = Math.max(1, scrapes);
+            int cores = Runtime.getRuntime().availableProcessors();
+
+            AlertValidationReport.ScrapeOverhead overhead = new AlertValidationReport.ScrapeOverhead(
+                    scrapes,
+                    scrapeNanos / 1e6 / count,
+                    maxScrapeNanos / 1e6,
+                    evaluationNanos / 1e6 / count,
+                    scrapeBytes / count,
+                    allocatedBytes / count,
+                    TimeUnit.NANOSECONDS.toMillis(cpuNanos),
+                    (double) cpuNanos / (Math.max(1, elapsedNanos) * cores));
+            return new AlertValidationReport(startedAt, elapsedMillis, intervalMillis, scrapeIntervalMillis,
+                    evaluationIntervalMillis, profile, states.stream().map(RuleState::result).toList(), unsupported,
+                    notes(), overhead);
+        }
+
+        private List<String> notes() {
+            List<String> notes = new ArrayList<>();
+            List<String> cpuLoadMetrics = rules.stream()
+                    .map(AlertRule::metric)
+                    .filter(CPU_LOAD_METRICS::contains)
+                    .distinct()
+                    .toList();
+            if (!cpuLoadMetrics.isEmpty() && intervalMillis < scrapeIntervalMillis) {
+                notes.add(cpuLoadMetrics + " are computed by the JVM over the time since their previous read. "
+                        + "Sampling every " + intervalMillis + " ms narrows that window for every reader, so the "
+                        + "real Prometheus scrape sees a " + intervalMillis + " ms average instead of a "
+                        + scrapeIntervalMillis + " ms one while the validation runs.");
+            }
+            return notes;
+        }
+    }
+
+    /**
+     * One rule evaluated the way Prometheus would and at full sampling resolution
+     */
+    private static final class RuleState {
+        private final AlertRule rule;
+        private final RuleEvaluator evaluated;
+        private final RuleEvaluator highResolution;
+
+        RuleState(AlertRule rule) {
+            this.rule = rule;
+            this.evaluated = new RuleEvaluator(rule);
+            this.highResolution = new RuleEvaluator(rule);
+        }
+
+        AlertValidationReport.RuleResult result() {
+            String reason = unevaluableReason();
+            AlertValidationReport.Outcome outcome = reason != null ? AlertValidationReport.Outcome.UNEVALUABLE
+                    : evaluated.timeToFire() != null ? AlertValidationReport.Outcome.FIRED
+                    : AlertValidationReport.Outcome.NOT_FIRED;
+            return new AlertValidationReport.RuleResult(rule.name(), rule.expression(),
+                    rule.forDuration().toMillis(), outcome, reason, evaluated.timeToFire(),
+                    evaluated.timeToResolve(), highResolution.timeToFire(), highResolution.timeToResolve(),
+                    highResolution.maxValue(), evaluated.abortedPending(), evaluated.firings());
+        }
+
+        private String unevaluableReason() {
+            if (rule.metric().equals("up") && !rule.operator().test(1, rule.threshold())) {
+                return "up is always 1 in-process, so the rule can only fire when the target is down";
+            }
+            if (!highResolution.matchedSeries()) {
+                return "no sampled series matched the selector, check alerts.validation.target-labels";
+            }
+            return null;
+        }
+    }
+}
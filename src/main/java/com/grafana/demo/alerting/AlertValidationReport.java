@@ -0,0 +1,70 @@
+package com.grafana.demo.alerting;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of one alert validation run. All times are milliseconds since the
+ * validation started.
+ *
+ * @param startedAt            wall-clock start, epoch millis
+ * @param durationMs           how long the rules were evaluated
+ * @param intervalMs           high-frequency sampling interval
+ * @param scrapeIntervalMs     Prometheus scrape interval the evaluation is modelled on
+ * @param evaluationIntervalMs Prometheus rule evaluation interval
+ * @param profile              simulator settings the application was running with
+ * @param rules                results of the evaluated rules
+ * @param unsupported          rules that were selected but could not be parsed, with the reason
+ * @param notes                caveats about how the run affected what it measured
+ * @param overhead             cost of the in-process sampling
+ */
+public record AlertValidationReport(long startedAt, long durationMs, long intervalMs, long scrapeIntervalMs,
+                                    long evaluationIntervalMs, Map<String, String> profile,
+                                    List<RuleResult> rules, Map<String, String> unsupported, List<String> notes,
+                                    ScrapeOverhead overhead) {
+
+    public enum Outcome {
+        FIRED, NOT_FIRED, UNEVALUABLE
+    }
+
+    /**
+     * Times and firings are those Prometheus would have seen, evaluating at
+     * the evaluation interval on samples taken at the scrape interval.
+     *
+     * @param reason                        why the rule is {@link Outcome#UNEVALUABLE}, otherwise {@code null}
+     * @param timeToFireMs                  when the rule first fired, {@code null} if it never did
+     * @param timeToResolveMs               how long the first firing lasted, {@code null} if it never resolved
+     * @param highResolutionTimeToFireMs    the same, evaluated on every high-frequency sample
+     * @param highResolutionTimeToResolveMs the same, evaluated on every high-frequency sample
+     * @param maxValue                      highest sampled value of any selected series, {@code null} if none was
+     * @param abortedPending                times the expression held but cleared before {@code for} elapsed
+     */
+    public record RuleResult(String name, String expression, long forMs, Outcome outcome, String reason,
+                             Long timeToFireMs, Long timeToResolveMs, Long highResolutionTimeToFireMs,
+                             Long highResolutionTimeToResolveMs, Double maxValue, int abortedPending,
+                             List<Firing> firings) {
+    }
+
+    /**
+     * One pending-to-firing-to-resolved cycle of a single series
+     *
+     * @param resolvedAtMs {@code null} if the alert was still firing when the validation ended
+     */
+    public record Firing(Map<String, String> series, long pendingAtMs, long firedAtMs, Long resolvedAtMs) {
+    }
+
+    /**
+     * @param scrapes             samples taken
+     * @param meanScrapeMs        mean wall time of rendering the exposition text
+     * @param maxScrapeMs         slowest scrape
+     * @param meanEvaluationMs    mean wall time of parsing the scrape and evaluating the rules
+     * @param meanScrapeBytes     mean size of the exposition text
+     * @param allocatedBytesPerScrape heap allocated per scrape and evaluation
+     * @param cpuMs               CPU time of the validation thread
+     * @param cpuFraction         that CPU time as a fraction of all cores over the run
+     */
+    public record ScrapeOverhead(long scrapes, double meanScrapeMs, double maxScrapeMs, double meanEvaluationMs,
+                                 long meanScrapeBytes, long allocatedBytesPerScrape, long cpuMs,
+                                 double cpuFraction) {
+    }
+}
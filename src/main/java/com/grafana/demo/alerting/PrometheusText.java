@@ -0,0 +1,93 @@
+package com.grafana.demo.alerting;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Minimal reader for the Prometheus text exposition format, as produced by
+ * {@code /actuator/prometheus}. Only samples of the requested metrics are
+ * parsed; comments and all other lines are skipped after reading the name.
+ */
+final class PrometheusText {
+
+    private PrometheusText() {
+    }
+
+    /**
+     * One sample of a scrape
+     */
+    record Sample(String name, Map<String, String> labels, double value) {
+    }
+
+    static List<Sample> parse(String text, Set<String> metrics) {
+        List<Sample> samples = new ArrayList<>();
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            if (text.charAt(lineStart) != '#') {
+                Sample sample = parseLine(text, lineStart, lineEnd, metrics);
+                if (sample != null) {
+                    samples.add(sample);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return samples;
+    }
+
+    private static Sample parseLine(String text, int start, int end, Set<String> metrics) {
+        int nameEnd = start;
+        while (nameEnd < end && text.charAt(nameEnd) != '{' && text.charAt(nameEnd) != ' ') {
+            nameEnd++;
+        }
+        String name = text.substring(start, nameEnd);
+        if (!metrics.contains(name)) {
+            return null;
+        }
+
+        Map<String, String> labels = new LinkedHashMap<>();
+        int position = nameEnd;
+        if (position < end && text.charAt(position) == '{') {
+            position++;
+            while (text.charAt(position) != '}') {
+                int equals = text.indexOf('=', position);
+                String label = text.substring(position, equals).trim();
+                StringBuilder value = new StringBuilder();
+                // Skip '=' and the opening quote
+                position = equals + 2;
+                for (char c = text.charAt(position); c != '"'; c = text.charAt(++position)) {
+                    if (c == '\\') {
+                        c = text.charAt(++position);
+                        value.append(c == 'n' ? '\n' : c);
+                    } else {
+                        value.append(c);
+                    }
+                }
+                labels.put(label, value.toString());
+                position++;
+                if (text.charAt(position) == ',') {
+                    position++;
+                }
+            }
+            position++;
+        }
+
+        String[] fields = text.substring(position, end).trim().split(" ");
+        return new Sample(name, labels, parseValue(fields[0]));
+    }
+
+    private static double parseValue(String value) {
+        return switch (value) {
+            case "+Inf" -> Double.POSITIVE_INFINITY;
+            case "-Inf" -> Double.NEGATIVE_INFINITY;
+            case "NaN" -> Double.NaN;
+            default -> Double.parseDouble(value);
+        };
+    }
+}
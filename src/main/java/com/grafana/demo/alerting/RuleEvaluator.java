@@ -0,0 +1,126 @@
+package com.grafana.demo.alerting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pending and firing state of one {@link AlertRule}, per selected series,
+ * following Prometheus' semantics: a series becomes pending on the first
+ * evaluation its expression holds, fires once it has held for the rule's
+ * {@code for} duration, and resolves on the first evaluation it no longer
+ * holds. Not thread-safe.
+ */
+final class RuleEvaluator {
+    private final AlertRule rule;
+    private final Map<Map<String, String>, Active> active = new HashMap<>();
+    private final List<AlertValidationReport.Firing> firings = new ArrayList<>();
+    private Double maxValue;
+    private int abortedPending;
+    private boolean matchedSeries;
+
+    RuleEvaluator(AlertRule rule) {
+        this.rule = rule;
+    }
+
+    /**
+     * Evaluates the rule on one set of samples, taken {@code now} milliseconds into the run
+     */
+    void evaluate(Collection<PrometheusText.Sample> samples, long now) {
+        Set<Map<String, String>> holding = new HashSet<>();
+        for (PrometheusText.Sample sample : samples) {
+            if (!rule.selects(sample)) {
+                continue;
+            }
+            matchedSeries = true;
+            if (!Double.isNaN(sample.value())) {
+                maxValue = maxValue == null ? sample.value() : Math.max(maxValue, sample.value());
+            }
+            if (!rule.isActive(sample)) {
+                continue;
+            }
+            holding.add(sample.labels());
+            Active state = active.computeIfAbsent(sample.labels(), labels -> new Active(now));
+            if (state.firedAt < 0 && now - state.pendingAt >= rule.forDuration().toMillis()) {
+                state.firedAt = now;
+            }
+        }
+
+        Iterator<Map.Entry<Map<String, String>, Active>> states = active.entrySet().iterator();
+        while (states.hasNext()) {
+            Map.Entry<Map<String, String>, Active> entry = states.next();
+            if (holding.contains(entry.getKey())) {
+                continue;
+            }
+            Active state = entry.getValue();
+            if (state.firedAt >= 0) {
+                firings.add(new AlertValidationReport.Firing(entry.getKey(), state.pendingAt, state.firedAt, now));
+            } else {
+                abortedPending++;
+            }
+            states.remove();
+        }
+    }
+
+    /**
+     * All firings so far, including those still firing (without a resolve time), in order of firing
+     */
+    List<AlertValidationReport.Firing> firings() {
+        List<AlertValidationReport.Firing> all = new ArrayList<>(firings);
+        active.forEach((series, state) -> {
+            if (state.firedAt >= 0) {
+                all.add(new AlertValidationReport.Firing(series, state.pendingAt, state.firedAt, null));
+            }
+        });
+        all.sort((a, b) -> Long.compare(a.firedAtMs(), b.firedAtMs()));
+        return all;
+    }
+
+    /**
+     * When the rule first fired, {@code null} if it never did
+     */
+    Long timeToFire() {
+        List<AlertValidationReport.Firing> all = firings();
+        return all.isEmpty() ? null : all.get(0).firedAtMs();
+    }
+
+    /**
+     * How long the first firing lasted, {@code null} if the rule never fired or never resolved
+     */
+    Long timeToResolve() {
+        List<AlertValidationReport.Firing> all = firings();
+        if (all.isEmpty() || all.get(0).resolvedAtMs() == null) {
+            return null;
+        }
+        return all.get(0).resolvedAtMs() - all.get(0).firedAtMs();
+    }
+
+    Double maxValue() {
+        return maxValue;
+    }
+
+    int abortedPending() {
+        return abortedPending;
+    }
+
+    /**
+     * Whether any evaluated sample was selected by the rule
+     */
+    boolean matchedSeries() {
+        return matchedSeries;
+    }
+
+    private static final class Active {
+        private final long pendingAt;
+        private long firedAt = -1;
+
+        Active(long pendingAt) {
+            this.pendingAt = pendingAt;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.grafana.demo.cache;
+
+/**
+ * A captured HTTP response that can be replayed to later callers
+ */
+public record CachedResponse(int status, String contentType, byte[] body) {
+}
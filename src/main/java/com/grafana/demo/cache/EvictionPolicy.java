@@ -0,0 +1,13 @@
+package com.grafana.demo.cache;
+
+/**
+ * Eviction policies supported by {@link ResponseCache}
+ */
+public enum EvictionPolicy {
+    /** Evicts the least recently used entry */
+    LRU,
+    /** Small LRU admission window in front of a main area guarded by a frequency sketch */
+    TINY_LFU,
+    /** Entries expire after a fixed time; the oldest entry is evicted when over size */
+    TTL
+}
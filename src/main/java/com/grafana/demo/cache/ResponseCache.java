@@ -0,0 +1,216 @@
+package com.grafana.demo.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Size-bounded in-process store for {@link CachedResponse}s.
+ * <p>
+ * Capacity is measured in bytes (body, key and an estimated per-entry
+ * overhead) rather than entries. All operations take a single lock; the
+ * structures are small and the critical sections are a few map operations.
+ *
+ * @see EvictionPolicy
+ */
+public class ResponseCache {
+
+    // Rough cost of the entry object, map node and response record on a 64-bit JVM
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    private static final double WINDOW_RATIO = 0.01;
+
+    /**
+     * Reasons an entry leaves the cache, reported to the eviction listener
+     */
+    public enum EvictionCause { SIZE, EXPIRED, REJECTED }
+
+    private final EvictionPolicy policy;
+    private final long ttlNanos;
+    private final Consumer<EvictionCause> evictionListener;
+
+    // Only used by TINY_LFU: recently added entries, before they compete for the main area
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> main;
+    private final FrequencySketch sketch;
+
+    private final long windowMaxBytes;
+    private final long mainMaxBytes;
+    private long windowBytes;
+    private long mainBytes;
+
+    public ResponseCache(EvictionPolicy policy, long maxBytes, long ttlMillis,
+                         Consumer<EvictionCause> evictionListener) {
+        this.policy = policy;
+        // Expiry is what the TTL policy is about; LRU and TinyLFU evict by size alone
+        this.ttlNanos = policy == EvictionPolicy.TTL ? ttlMillis * 1_000_000L : 0;
+        this.evictionListener = evictionListener;
+
+        // TTL keeps insertion order, so the eldest entry is also the one expiring first
+        this.main = new LinkedHashMap<>(16, 0.75f, policy != EvictionPolicy.TTL);
+
+        if (policy == EvictionPolicy.TINY_LFU) {
+            this.windowMaxBytes = Math.max(1, (long) (maxBytes * WINDOW_RATIO));
+            this.mainMaxBytes = maxBytes - windowMaxBytes;
+            this.sketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE, maxBytes / ENTRY_OVERHEAD_BYTES));
+        } else {
+            this.windowMaxBytes = 0;
+            this.mainMaxBytes = maxBytes;
+            this.sketch = null;
+        }
+    }
+
+    /**
+     * Returns the cached response for a key, or {@code null} on a miss
+     */
+    public synchronized CachedResponse get(String key) {
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+
+        Entry entry = window.get(key);
+        LinkedHashMap<String, Entry> area = window;
+        if (entry == null) {
+            entry = main.get(key);
+            area = main;
+        }
+        if (entry == null) {
+            return null;
+        }
+
+        if (isExpired(entry, System.nanoTime())) {
+            remove(area, key, entry);
+            evictionListener.accept(EvictionCause.EXPIRED);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public synchronized void put(String key, CachedResponse value) {
+        Entry entry = new Entry(key, value, System.nanoTime() + ttlNanos);
+        if (entry.weight > windowMaxBytes + mainMaxBytes) {
+            return;
+        }
+
+        removeExisting(key);
+        if (policy == EvictionPolicy.TINY_LFU) {
+            window.put(key, entry);
+            windowBytes += entry.weight;
+            while (windowBytes > windowMaxBytes && window.size() > 1) {
+                Entry candidate = removeEldest(window);
+                admit(candidate);
+            }
+        } else {
+            main.put(key, entry);
+            mainBytes += entry.weight;
+            expireEldest();
+            while (mainBytes > mainMaxBytes && !main.isEmpty()) {
+                removeEldest(main);
+                evictionListener.accept(EvictionCause.SIZE);
+            }
+        }
+    }
+
+    /**
+     * Moves an entry evicted from the window into the main area if it is
+     * requested more often than the entries it would displace
+     */
+    private void admit(Entry candidate) {
+        if (candidate.weight > mainMaxBytes) {
+            evictionListener.accept(EvictionCause.REJECTED);
+            return;
+        }
+
+        int candidateFrequency = sketch.frequency(candidate.key);
+        while (mainBytes + candidate.weight > mainMaxBytes) {
+            Entry victim = main.values().iterator().next();
+            if (candidateFrequency <= sketch.frequency(victim.key)) {
+                evictionListener.accept(EvictionCause.REJECTED);
+                return;
+            }
+            removeEldest(main);
+            evictionListener.accept(EvictionCause.SIZE);
+        }
+        main.put(candidate.key, candidate);
+        mainBytes += candidate.weight;
+    }
+
+    private void expireEldest() {
+        if (policy != EvictionPolicy.TTL) {
+            return;
+        }
+        long now = System.nanoTime();
+        Iterator<Entry> entries = main.values().iterator();
+        while (entries.hasNext()) {
+            Entry eldest = entries.next();
+            if (!isExpired(eldest, now)) {
+                break;
+            }
+            entries.remove();
+            mainBytes -= eldest.weight;
+            evictionListener.accept(EvictionCause.EXPIRED);
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return ttlNanos > 0 && now - entry.expiresAt >= 0;
+    }
+
+    private void removeExisting(String key) {
+        Entry existing = window.remove(key);
+        if (existing != null) {
+            windowBytes -= existing.weight;
+        }
+        existing = main.remove(key);
+        if (existing != null) {
+            mainBytes -= existing.weight;
+        }
+    }
+
+    private Entry removeEldest(LinkedHashMap<String, Entry> area) {
+        Iterator<Map.Entry<String, Entry>> entries = area.entrySet().iterator();
+        Entry eldest = entries.next().getValue();
+        entries.remove();
+        if (area == window) {
+            windowBytes -= eldest.weight;
+        } else {
+            mainBytes -= eldest.weight;
+        }
+        return eldest;
+    }
+
+    private void remove(LinkedHashMap<String, Entry> area, String key, Entry entry) {
+        area.remove(key);
+        if (area == window) {
+            windowBytes -= entry.weight;
+        } else {
+            mainBytes -= entry.weight;
+        }
+    }
+
+    public synchronized long sizeBytes() {
+        return windowBytes + mainBytes;
+    }
+
+    public synchronized int entryCount() {
+        return window.size() + main.size();
+    }
+
+    public EvictionPolicy getPolicy() {
+        return policy;
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final CachedResponse value;
+        private final long expiresAt;
+        private final int weight;
+
+        private Entry(String key, CachedResponse value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.weight = ENTRY_OVERHEAD_BYTES + key.length() * 2 + value.body().length;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.grafana.demo.cache;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.grafana.demo.pressure.MemoryPressureMonitor;
+import com.grafana.demo.service.JitWarmup;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Optional response cache in front of the idempotent GET endpoints of the
+ * demo API. Only full {@code 200} responses are stored, keyed by path and
+ * query; the simplified responses served under memory pressure are not.
+ * <p>
+ * Concurrent misses for the same key are coalesced: the first request
+ * computes the response and the others wait for it and replay its result.
+ * Runs ahead of the concurrency limiter, so hits and coalesced requests do not
+ * take a limiter slot.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+@ConditionalOnProperty(prefix = "cache", name = "enabled", havingValue = "true")
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+    private static final Set<String> CACHEABLE_PATHS = Set.of("/api/demo/fast", "/api/demo/slow", "/api/demo/flaky");
+    public static final String CACHE_HEADER = "X-Cache";
+
+    private final ResponseCache cache;
+    private final Map<String, CompletableFuture<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Map<ResponseCache.EvictionCause, Counter> evictions = new EnumMap<>(ResponseCache.EvictionCause.class);
+
+    public ResponseCacheFilter(MeterRegistry registry,
+                               @Value("${cache.eviction:lru}") String eviction,
+                               @Value("${cache.max-bytes:262144}") long maxBytes,
+                               @Value("${cache.ttl-ms:5000}") long ttlMillis) {
+        EvictionPolicy policy = EvictionPolicy.valueOf(eviction.trim().toUpperCase().replace('-', '_'));
+        String policyTag = policy.name().toLowerCase();
+
+        for (ResponseCache.EvictionCause cause : ResponseCache.EvictionCause.values()) {
+            evictions.put(cause, Counter.builder("response.cache.evictions")
+                    .description("Entries evicted from or refused by the response cache")
+                    .tag("policy", policyTag)
+                    .tag("cause", cause.name().toLowerCase())
+                    .register(registry));
+        }
+        this.cache = new ResponseCache(policy, maxBytes, ttlMillis, cause -> evictions.get(cause).increment());
+
+        hits = lookupCounter(registry, policyTag, "hit");
+        misses = lookupCounter(registry, policyTag, "miss");
+        coalesced = lookupCounter(registry, policyTag, "coalesced");
+        Gauge.builder("response.cache.size", cache, ResponseCache::sizeBytes)
+                .description("Estimated heap used by cached responses")
+                .baseUnit("bytes")
+                .tag("policy", policyTag)
+                .register(registry);
+        Gauge.builder("response.cache.entries", cache, ResponseCache::entryCount)
+                .description("Number of cached responses")
+                .tag("policy", policyTag)
+                .register(registry);
+
+        if (policy == EvictionPolicy.TTL) {
+            logger.info("Response cache enabled: policy={}, maxBytes={}, ttl={}ms", policy, maxBytes, ttlMillis);
+        } else {
+            logger.info("Response cache enabled: policy={}, maxBytes={}", policy, maxBytes);
+        }
+    }
+
+    private static Counter lookupCounter(MeterRegistry registry, String policy, String result) {
+        return Counter.builder("response.cache.gets")
+                .description("Response cache lookups")
+                .tag("policy", policy)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || !CACHEABLE_PATHS.contains(request.getRequestURI())
+                || JitWarmup.isWarmupRequest(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String key = request.getQueryString() == null
+                ? request.getRequestURI()
+                : request.getRequestURI() + '?' + request.getQueryString();
+
+        CachedResponse cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            write(response, cached, "HIT");
+            return;
+        }
+
+        CompletableFuture<CachedResponse> computation = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> existing = inFlight.putIfAbsent(key, computation);
+        if (existing != null) {
+            coalesced.increment();
+            awaitAndWrite(existing, request, response, filterChain);
+            return;
+        }
+
+        misses.increment();
+        try {
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            wrapper.setHeader(CACHE_HEADER, "MISS");
+            filterChain.doFilter(request, wrapper);
+
+            CachedResponse result = new CachedResponse(
+                    wrapper.getStatus(), wrapper.getContentType(), wrapper.getContentAsByteArray());
+            wrapper.copyBodyToResponse();
+
+            if (result.status() == HttpStatus.OK.value()
+                    && request.getAttribute(MemoryPressureMonitor.DEGRADED_ATTRIBUTE) == null) {
+                cache.put(key, result);
+            }
+            computation.complete(result);
+        } catch (IOException | ServletException | RuntimeException e) {
+            computation.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, computation);
+        }
+    }
+
+    /**
+     * Waits for the request computing the same key and replays its response.
+     * Falls back to handling the request normally if that computation failed.
+     */
+    private void awaitAndWrite(CompletableFuture<CachedResponse> computation, HttpServletRequest request,
+                               HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            write(response, computation.get(), "COALESCED");
+        } catch (ExecutionException e) {
+            filterChain.doFilter(request, response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+        }
+    }
+
+    private void write(HttpServletResponse response, CachedResponse cached, String cacheResult) throws IOException {
+        response.setStatus(cached.status());
+        response.setHeader(CACHE_HEADER, cacheResult);
+        if (cached.contentType() != null) {
+            response.setContentType(cached.contentType());
+        }
+        response.setContentLength(cached.body().length);
+        response.getOutputStream().write(cached.body());
+    }
+}
@@ -0,0 +1,55 @@
+package com.grafana.demo.capture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Uniform fixed-size sample of the items offered since the last drain
+ * (Vitter's algorithm R). Memory and per-item cost are constant no matter how
+ * many items arrive.
+ */
+public class ReservoirSampler<T> {
+
+    private final Object[] reservoir;
+    private final SplittableRandom random = new SplittableRandom();
+    private long seen;
+
+    public ReservoirSampler(int size) {
+        this.reservoir = new Object[size];
+    }
+
+    public synchronized void offer(T item) {
+        if (seen < reservoir.length) {
+            reservoir[(int) seen] = item;
+        } else {
+            long slot = random.nextLong(seen + 1);
+            if (slot < reservoir.length) {
+                reservoir[(int) slot] = item;
+            }
+        }
+        seen++;
+    }
+
+    /**
+     * Returns the current sample and starts a new one
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized Sample<T> drain() {
+        int count = (int) Math.min(seen, reservoir.length);
+        List<T> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add((T) reservoir[i]);
+            reservoir[i] = null;
+        }
+        Sample<T> sample = new Sample<>(items, seen);
+        seen = 0;
+        return sample;
+    }
+
+    /**
+     * Sampled items together with the number of items they were drawn from
+     */
+    public record Sample<T>(List<T> items, long seen) {
+    }
+}
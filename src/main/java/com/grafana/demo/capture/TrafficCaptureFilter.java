@@ -0,0 +1,173 @@
+package com.grafana.demo.capture;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.grafana.demo.service.JitWarmup;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Captures the shape of incoming demo API traffic (method, path and query,
+ * body size, inter-arrival time) into a {@link TrafficLog} for later replay.
+ * Body sizes are the bytes the application read, so chunked uploads without a
+ * Content-Length are sized correctly; requests are recorded once handled.
+ * <p>
+ * Requests are not written as they arrive: each capture window keeps a
+ * reservoir sample of at most {@code capture.reservoir-size} requests, which
+ * is appended to the log when the window closes. Every record carries the
+ * number of real requests it stands for, so a replay can restore the original
+ * volume. Runs ahead of the cache and the concurrency limiter, so shed and
+ * cached requests are captured too.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 20)
+@ConditionalOnProperty(prefix = "capture", name = "enabled", havingValue = "true")
+public class TrafficCaptureFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(TrafficCaptureFilter.class);
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final String API_PREFIX = "/api/demo";
+
+    private final ReservoirSampler<CapturedRequest> sampler;
+    private final TrafficLogWriter writer;
+    private final Path file;
+
+    private final Counter sampled;
+    private final Counter skipped;
+
+    // Arrival time of the last written record, 0 before the first one
+    private long lastArrival;
+    private boolean full;
+
+    public TrafficCaptureFilter(MeterRegistry registry,
+                                @Value("${capture.dir:captures}") String directory,
+                                @Value("${capture.max-bytes:16777216}") int maxBytes,
+                                @Value("${capture.reservoir-size:50}") int reservoirSize) throws IOException {
+        Path captureDirectory = Paths.get(directory);
+        Files.createDirectories(captureDirectory);
+        this.file = captureDirectory.resolve("traffic-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".bin")
+                .toAbsolutePath();
+        this.writer = new TrafficLogWriter(file, maxBytes);
+        this.sampler = new ReservoirSampler<>(reservoirSize);
+
+        sampled = requestCounter(registry, "sampled");
+        skipped = requestCounter(registry, "skipped");
+        Gauge.builder("traffic.capture.size", writer, TrafficLogWriter::sizeBytes)
+                .description("Bytes written to the current traffic capture")
+                .baseUnit("bytes")
+                .register(registry);
+
+        logger.info("Capturing demo API traffic to {} (reservoir size {})", file, reservoirSize);
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("traffic.capture.requests")
+                .description("Requests seen by the traffic capture")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(API_PREFIX + "/") || JitWarmup.isWarmupRequest(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long arrival = System.nanoTime();
+        // The query string (e.g. ?item=) drives the cache and the key skew, so it is part of the path
+        String path = request.getRequestURI().substring(API_PREFIX.length());
+        if (request.getQueryString() != null) {
+            path += '?' + request.getQueryString();
+        }
+        CountingRequestWrapper counting = new CountingRequestWrapper(request);
+        try {
+            filterChain.doFilter(counting, response);
+        } finally {
+            // Chunked bodies (the streaming client) have no Content-Length, so the bytes read are what counts.
+            // Content-Length still covers bodies that were never read, e.g. of shed requests.
+            long bodySize = Math.max(counting.bytesRead(), request.getContentLengthLong());
+            sampler.offer(new CapturedRequest(arrival, request.getMethod(), path,
+                    (int) Math.min(Integer.MAX_VALUE, bodySize)));
+        }
+    }
+
+    /**
+     * Closes the current capture window and appends its sample to the log
+     */
+    @Scheduled(fixedRateString = "${capture.window-ms:1000}")
+    public synchronized void flush() {
+        ReservoirSampler.Sample<CapturedRequest> sample = sampler.drain();
+        List<CapturedRequest> requests = sample.items();
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        float weight = (float) sample.seen() / requests.size();
+        requests.sort(Comparator.comparingLong(CapturedRequest::arrivalNanos));
+
+        int written = 0;
+        for (CapturedRequest request : requests) {
+            if (full) {
+                break;
+            }
+            long interArrival = lastArrival == 0 ? 0 : request.arrivalNanos() - lastArrival;
+            TrafficLogWriter.AppendResult result = writer.append(new TrafficRecord(
+                    request.method(), request.path(), request.bodySize(), interArrival, weight));
+            switch (result) {
+                case WRITTEN -> {
+                    lastArrival = request.arrivalNanos();
+                    written++;
+                }
+                // Its gap is folded into the next record's inter-arrival time
+                case UNSUPPORTED -> logger.debug("Not capturing {} {}: unsupported method",
+                        request.method(), request.path());
+                case FULL -> {
+                    logger.warn("Traffic capture {} is full, further requests are not captured", file);
+                    full = true;
+                }
+            }
+        }
+        sampled.increment(written);
+        skipped.increment(sample.seen() - written);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        flush();
+        try {
+            writer.close();
+            logger.info("Traffic capture written to {}", file);
+        } catch (IOException e) {
+            logger.error("Failed to close traffic capture {}", file, e);
+        }
+    }
+
+    private record CapturedRequest(long arrivalNanos, String method, String path, int bodySize) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.grafana.demo.capture;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary format of a traffic capture.
+ * <p>
+ * A 16-byte header (magic, version, capture start in epoch millis) is followed
+ * by variable-length records: method code (1 byte, never 0), inter-arrival
+ * time in microseconds (int), body size (int), sample weight (float), path
+ * length (short) and the UTF-8 path. Capture files are pre-sized and
+ * zero-filled, so a method code of 0 marks the end of the data.
+ */
+public final class TrafficLog {
+
+    static final int MAGIC = 0x47445443; // "GDTC"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_HEADER_BYTES = 15;
+    static final int MAX_PATH_BYTES = 1024;
+
+    // Method codes are the index in this array plus one
+    static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS"};
+
+    private TrafficLog() {
+    }
+
+    static byte methodCode(String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return (byte) (i + 1);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reads all records of a capture file
+     */
+    public static List<TrafficRecord> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a traffic capture: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported traffic capture version " + version + ": " + file);
+            }
+            buffer.getLong(); // Capture start, informational only
+
+            List<TrafficRecord> records = new ArrayList<>();
+            while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+                int method = buffer.get();
+                if (method <= 0 || method > METHODS.length) {
+                    break;
+                }
+                long interArrivalNanos = buffer.getInt() * 1000L;
+                int bodySize = buffer.getInt();
+                float weight = buffer.getFloat();
+                byte[] path = new byte[buffer.getShort()];
+                buffer.get(path);
+                records.add(new TrafficRecord(METHODS[method - 1], new String(path, StandardCharsets.UTF_8),
+                        bodySize, interArrivalNanos, weight));
+            }
+            return records;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.grafana.demo.capture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Appends {@link TrafficRecord}s to a new capture file through a memory
+ * mapping of fixed capacity. Appending is a handful of buffer writes with no
+ * system call; the OS writes the pages back to disk.
+ * <p>
+ * Not thread-safe.
+ *
+ * @see TrafficLog
+ */
+public class TrafficLogWriter implements Closeable {
+
+    /**
+     * Outcome of {@link #append}
+     */
+    public enum AppendResult {
+        WRITTEN,
+        /** The record has a method the log format cannot encode; nothing was written */
+        UNSUPPORTED,
+        /** Not enough space left in the file */
+        FULL
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    public TrafficLogWriter(Path file, int capacityBytes) throws IOException {
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+        buffer.putInt(TrafficLog.MAGIC)
+                .putInt(TrafficLog.VERSION)
+                .putLong(System.currentTimeMillis());
+    }
+
+    /**
+     * Appends a record unless it has an unsupported method or the file is full
+     */
+    public AppendResult append(TrafficRecord record) {
+        byte method = TrafficLog.methodCode(record.method());
+        if (method == 0) {
+            return AppendResult.UNSUPPORTED;
+        }
+        byte[] path = record.path().getBytes(StandardCharsets.UTF_8);
+        if (path.length > TrafficLog.MAX_PATH_BYTES) {
+            path = Arrays.copyOf(path, TrafficLog.MAX_PATH_BYTES);
+        }
+        if (buffer.remaining() < TrafficLog.RECORD_HEADER_BYTES + path.length) {
+            return AppendResult.FULL;
+        }
+
+        buffer.put(method)
+                .putInt((int) Math.min(Integer.MAX_VALUE, record.interArrivalNanos() / 1000))
+                .putInt(record.bodySize())
+                .putFloat(record.weight())
+                .putShort((short) path.length)
+                .put(path);
+        return AppendResult.WRITTEN;
+    }
+
+    public int sizeBytes() {
+        return buffer.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
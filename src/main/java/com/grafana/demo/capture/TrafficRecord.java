@@ -0,0 +1,13 @@
+package com.grafana.demo.capture;
+
+/**
+ * A single captured request
+ *
+ * @param method            HTTP method
+ * @param path              request path relative to {@code /api/demo}, including the query string if any
+ * @param bodySize          request body size in bytes ({@code 0} when unknown)
+ * @param interArrivalNanos time since the previous captured request
+ * @param weight            number of real requests this sample stands for
+ */
+public record TrafficRecord(String method, String path, int bodySize, long interArrivalNanos, float weight) {
+}
@@ -0,0 +1,179 @@
+package com.grafana.demo.cluster;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Small HTTP rendezvous that lets several instances generate coordinated load.
+ * <p>
+ * The node whose own URL equals {@code cluster.coordinator-url} is the
+ * coordinator: it picks the shared seed and start time and keeps track of the
+ * members. Every node (the coordinator included) joins every few seconds;
+ * the join doubles as a heartbeat and returns the current {@link ClusterPlan}.
+ * Members that stop sending heartbeats drop out of the plan, so the global
+ * rate is re-split automatically as nodes come and go.
+ * <p>
+ * Heartbeats run on their own thread rather than Spring's shared scheduler,
+ * which the simulators block for seconds at a time; a late heartbeat would
+ * make the coordinator drop a live member and re-split the rate.
+ */
+@Service
+@ConditionalOnProperty(prefix = "cluster", name = "enabled", havingValue = "true")
+public class ClusterCoordinator {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCoordinator.class);
+
+    private static final long HEARTBEAT_INTERVAL_MS = 5000;
+    private static final long MEMBER_TIMEOUT_MS = 15000;
+
+    private final RestTemplate restTemplate;
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cluster-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String nodeId;
+    private final String nodeUrl;
+    private final String coordinatorUrl;
+    private final boolean coordinator;
+
+    // Coordinator state
+    private final long seed;
+    private final long startAtMillis;
+    private final double globalTargetRps;
+    private final Map<String, MemberState> members = new ConcurrentHashMap<>();
+
+    private volatile ClusterPlan plan;
+
+    public ClusterCoordinator(MeterRegistry registry,
+                              @Value("${cluster.node-id}") String nodeId,
+                              @Value("${cluster.node-url}") String nodeUrl,
+                              @Value("${cluster.coordinator-url}") String coordinatorUrl,
+                              @Value("${cluster.seed:0}") long seed,
+                              @Value("${cluster.start-delay-ms:15000}") long startDelayMs,
+                              @Value("${cluster.target-rps:20}") double globalTargetRps,
+                              @Value("${cluster.connect-timeout-ms:1000}") int connectTimeoutMs,
+                              @Value("${cluster.read-timeout-ms:2000}") int readTimeoutMs) {
+        this.nodeId = nodeId;
+        this.nodeUrl = nodeUrl;
+        this.coordinatorUrl = coordinatorUrl;
+        this.coordinator = coordinatorUrl.equals(nodeUrl);
+        this.seed = seed != 0 ? seed : new Random().nextLong();
+        this.startAtMillis = System.currentTimeMillis() + startDelayMs;
+        this.globalTargetRps = globalTargetRps;
+
+        // Both well below the heartbeat interval, so an unresponsive coordinator cannot delay the next heartbeat
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofMillis(connectTimeoutMs));
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        this.restTemplate = new RestTemplate(requestFactory);
+
+        Gauge.builder("cluster.members", this, c -> c.plan != null ? c.plan.members().size() : 0)
+                .description("Nodes in the current coordinated load plan")
+                .register(registry);
+        Gauge.builder("cluster.node.target.rps", this, c -> c.plan != null ? c.plan.targetRpsPerNode() : 0)
+                .description("Request rate this node generates as its share of the global target")
+                .register(registry);
+
+        logger.info("Cluster mode enabled: node={}, coordinator={}{}",
+                nodeId, coordinatorUrl, coordinator ? " (this node)" : "");
+    }
+
+    /**
+     * Registers or refreshes a member and returns the resulting plan.
+     * Only meaningful on the coordinator.
+     */
+    public ClusterPlan join(ClusterPlan.Member member) {
+        if (!coordinator) {
+            throw new IllegalStateException("Node " + nodeId + " is not the cluster coordinator");
+        }
+        MemberState previous = members.put(member.nodeId(), new MemberState(member, System.currentTimeMillis()));
+        if (previous == null) {
+            logger.info("Node {} ({}) joined the cluster", member.nodeId(), member.url());
+        }
+        return buildPlan();
+    }
+
+    private ClusterPlan buildPlan() {
+        long cutoff = System.currentTimeMillis() - MEMBER_TIMEOUT_MS;
+        members.values().removeIf(state -> {
+            boolean expired = state.lastSeen < cutoff;
+            if (expired) {
+                logger.info("Node {} left the cluster", state.member.nodeId());
+            }
+            return expired;
+        });
+
+        List<ClusterPlan.Member> active = members.values().stream()
+                .map(state -> state.member)
+                .sorted(Comparator.comparing(ClusterPlan.Member::nodeId))
+                .toList();
+        return new ClusterPlan(seed, startAtMillis, globalTargetRps, active);
+    }
+
+    @PostConstruct
+    public void start() {
+        heartbeats.scheduleAtFixedRate(this::heartbeat, 0, HEARTBEAT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeats.shutdownNow();
+    }
+
+    private void heartbeat() {
+        ClusterPlan.Member self = new ClusterPlan.Member(nodeId, nodeUrl);
+        try {
+            ClusterPlan updated = coordinator
+                    ? join(self)
+                    : restTemplate.postForObject(coordinatorUrl + "/api/cluster/join", self, ClusterPlan.class);
+
+            if (updated != null && (plan == null || !plan.members().equals(updated.members()))) {
+                logger.info("Cluster plan: {} members, {} rps per node, seed={}, start at {}",
+                        updated.members().size(), updated.targetRpsPerNode(), updated.seed(), updated.startAtMillis());
+            }
+            plan = updated;
+        } catch (RestClientException e) {
+            logger.warn("Could not reach cluster coordinator {}: {}", coordinatorUrl, e.getMessage());
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel all further heartbeats
+            logger.error("Cluster heartbeat failed", e);
+        }
+    }
+
+    /**
+     * Latest plan known to this node, or {@code null} before the first successful join
+     */
+    public ClusterPlan currentPlan() {
+        return plan;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private record MemberState(ClusterPlan.Member member, long lastSeen) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.grafana.demo.cluster;
+
+import java.util.List;
+
+/**
+ * Shared load plan handed out by the coordinator node. Every node derives its
+ * traffic pattern schedule from {@code seed} and {@code startAtMillis}, and
+ * its share of the global request rate from its position in {@code members}.
+ */
+public record ClusterPlan(long seed, long startAtMillis, double globalTargetRps, List<Member> members) {
+
+    /**
+     * A node taking part in the coordinated load
+     */
+    public record Member(String nodeId, String url) {
+    }
+
+    public double targetRpsPerNode() {
+        return members.isEmpty() ? 0 : globalTargetRps / members.size();
+    }
+
+    public boolean isStarted(long nowMillis) {
+        return nowMillis >= startAtMillis;
+    }
+}
@@ -0,0 +1,132 @@
+package com.grafana.demo.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts the TCP connections opened by a client that has no hook for new
+ * connections, such as the JDK {@code HttpClient} used for H2C.
+ * <p>
+ * Polls this process's sockets (Linux only, from {@code /proc}): an
+ * established socket to the target port that was not there at the last poll
+ * is a new connection. Connections that open and close between two polls are
+ * missed, which is rare for long-lived multiplexed HTTP/2 connections.
+ */
+class ClientConnectionProbe {
+    private static final Logger logger = LoggerFactory.getLogger(ClientConnectionProbe.class);
+
+    private static final Path FD_DIRECTORY = Paths.get("/proc/self/fd");
+    private static final List<Path> TCP_TABLES = List.of(Paths.get("/proc/net/tcp"), Paths.get("/proc/net/tcp6"));
+    private static final String ESTABLISHED = "01";
+    private static final long POLL_INTERVAL_MS = 500;
+
+    private final int targetPort;
+    private final Counter opened;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "connection-probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Socket inodes of the connections seen at the last poll
+    private volatile Set<String> connections = Set.of();
+
+    ClientConnectionProbe(MeterRegistry registry, String mode, int targetPort) {
+        this.targetPort = targetPort;
+        this.opened = Counter.builder("http.client.connections.opened")
+                .description("TCP connections opened by the traffic simulator client")
+                .tag("mode", mode)
+                .register(registry);
+        Gauge.builder("http.client.connections.open", this, probe -> probe.connections.size())
+                .description("TCP connections of the traffic simulator client currently open")
+                .tag("mode", mode)
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!Files.isDirectory(FD_DIRECTORY) || !TCP_TABLES.stream().allMatch(Files::isReadable)) {
+            logger.warn("Cannot count client connections on this platform, http.client.connections.opened stays 0");
+            return;
+        }
+        poller.scheduleWithFixedDelay(this::poll, 0, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        poller.shutdownNow();
+    }
+
+    private void poll() {
+        try {
+            Set<String> current = establishedToTarget();
+            current.retainAll(ownSockets());
+            opened.increment(current.stream().filter(inode -> !connections.contains(inode)).count());
+            connections = current;
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Failed to poll client connections", e);
+        }
+    }
+
+    /**
+     * Inodes of the established sockets, of any process, whose remote port is the target port
+     */
+    private Set<String> establishedToTarget() throws IOException {
+        Set<String> inodes = new HashSet<>();
+        for (Path table : TCP_TABLES) {
+            // sl local_address rem_address st tx_queue:rx_queue tr:tm->when retrnsmt uid timeout inode
+            List<String> lines = Files.readAllLines(table);
+            for (String line : lines.subList(1, lines.size())) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length < 10 || !ESTABLISHED.equals(fields[3])) {
+                    continue;
+                }
+                String remote = fields[2];
+                int port = Integer.parseInt(remote.substring(remote.indexOf(':') + 1), 16);
+                if (port == targetPort) {
+                    inodes.add(fields[9]);
+                }
+            }
+        }
+        return inodes;
+    }
+
+    /**
+     * Inodes of the sockets this process has open
+     */
+    private static Set<String> ownSockets() throws IOException {
+        Set<String> inodes = new HashSet<>();
+        try (Stream<Path> descriptors = Files.list(FD_DIRECTORY)) {
+            descriptors.forEach(descriptor -> {
+                try {
+                    String target = Files.readSymbolicLink(descriptor).toString();
+                    if (target.startsWith("socket:[")) {
+                        inodes.add(target.substring("socket:[".length(), target.length() - 1));
+                    }
+                } catch (IOException e) {
+                    // Closed since it was listed
+                }
+            });
+        }
+        return inodes;
+    }
+}
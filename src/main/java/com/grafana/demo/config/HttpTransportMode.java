@@ -0,0 +1,24 @@
+package com.grafana.demo.config;
+
+/**
+ * Transport used by the HTTP traffic simulator to reach the demo API
+ */
+public enum HttpTransportMode {
+    /** HTTP/1.1 over a bounded pool of keep-alive connections */
+    POOLED,
+    /** HTTP/1.1 with a new TCP connection for every request */
+    NEW_CONNECTION,
+    /** Cleartext HTTP/2, multiplexing all requests over a single connection */
+    H2C;
+
+    public static HttpTransportMode from(String value) {
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+
+    /**
+     * Lower-case name used as a metric tag value
+     */
+    public String tagValue() {
+        return name().toLowerCase();
+    }
+}
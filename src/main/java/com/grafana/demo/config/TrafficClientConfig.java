@@ -0,0 +1,113 @@
+package com.grafana.demo.config;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.grafana.demo.limit.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * HTTP client used by the traffic simulator, built for the configured
+ * {@link HttpTransportMode}.
+ * <p>
+ * The HTTP/1.1 modes use Apache HttpClient so the pool can be sized and
+ * observed; every new TCP connection increments
+ * {@code http.client.connections.opened}. H2C uses the JDK client, which
+ * upgrades the first connection to HTTP/2 and multiplexes over it. The server
+ * side only accepts the upgrade with {@code server.http2.enabled=true}. The
+ * JDK client cannot report new connections, so in H2C mode the same counter
+ * is fed by a {@link ClientConnectionProbe}.
+ */
+@Configuration
+public class TrafficClientConfig {
+    private static final Logger logger = LoggerFactory.getLogger(TrafficClientConfig.class);
+
+    // The traffic simulator always calls port 8080, locally or on the other cluster members
+    private static final int TRAFFIC_PORT = 8080;
+
+    @Bean
+    @Lazy
+    public ClientHttpRequestFactory trafficRequestFactory(MeterRegistry registry,
+                                                          ObjectProvider<ClientConnectionProbe> connectionProbe,
+                                                          @Value("${traffic.transport:pooled}") String transport,
+                                                          @Value("${traffic.pool-size:20}") int poolSize) {
+        HttpTransportMode mode = HttpTransportMode.from(transport);
+        logger.info("Traffic simulator transport: {} (pool size {})", mode, poolSize);
+
+        if (mode == HttpTransportMode.H2C) {
+            connectionProbe.getObject();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            return new JdkClientHttpRequestFactory(client);
+        }
+
+        Counter connectionsOpened = Counter.builder("http.client.connections.opened")
+                .description("TCP connections opened by the traffic simulator client")
+                .tag("mode", mode.tagValue())
+                .register(registry);
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(poolSize)
+                .setMaxConnPerRoute(poolSize)
+                .setConnectionFactory(socket -> {
+                    connectionsOpened.increment();
+                    return ManagedHttpClientConnectionFactory.INSTANCE.createConnection(socket);
+                })
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "traffic-simulator",
+                "mode", mode.tagValue()).bindTo(registry);
+
+        HttpClientBuilder client = HttpClients.custom().setConnectionManager(connectionManager);
+        if (mode == HttpTransportMode.NEW_CONNECTION) {
+            client.setConnectionReuseStrategy((request, response, context) -> false);
+        }
+        return new HttpComponentsClientHttpRequestFactory(client.build());
+    }
+
+    @Bean
+    @Lazy
+    ClientConnectionProbe h2cConnectionProbe(MeterRegistry registry) {
+        return new ClientConnectionProbe(registry, HttpTransportMode.H2C.tagValue(), TRAFFIC_PORT);
+    }
+
+    /**
+     * Stamps every request with the time it was sent, so the server's
+     * concurrency limiter can see how long it queued. The header is set on the
+     * request as it is created rather than through an interceptor, which would
+     * buffer streamed bodies.
+     */
+    @Bean
+    @Lazy
+    public RestTemplate trafficRestTemplate(@Qualifier("trafficRequestFactory") ClientHttpRequestFactory requestFactory) {
+        return new RestTemplate((uri, method) -> {
+            ClientHttpRequest request = requestFactory.createRequest(uri, method);
+            request.getHeaders().set(ConcurrencyLimitFilter.REQUEST_START_HEADER,
+                    "t=" + TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+            return request;
+        });
+    }
+}
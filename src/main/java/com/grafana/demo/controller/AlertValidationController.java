@@ -0,0 +1,66 @@
+package com.grafana.demo.controller;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.Map;
+
+import com.grafana.demo.alerting.AlertRuleValidator;
+import com.grafana.demo.alerting.AlertValidationReport;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/alerts/validation")
+public class AlertValidationController {
+
+    private final AlertRuleValidator validator;
+
+    public AlertValidationController(AlertRuleValidator validator) {
+        this.validator = validator;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(validator.status());
+    }
+
+    /**
+     * Starts evaluating the given rules, or all rules of the rule file, against in-process scrapes
+     */
+    @PostMapping("/start")
+    public ResponseEntity<Map<String, Object>> startValidation(@RequestParam(required = false) Long durationSeconds,
+                                                               @RequestParam(required = false) Long intervalMs,
+                                                               @RequestParam(required = false) List<String> rules)
+            throws IOException {
+        try {
+            return ResponseEntity.ok(validator.start(durationSeconds, intervalMs, rules != null ? rules : List.of()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Rule file not found: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<Object> stopValidation() throws InterruptedException {
+        try {
+            return ResponseEntity.ok(validator.stop());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/report")
+    public ResponseEntity<Object> getReport() {
+        AlertValidationReport report = validator.lastReport();
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "No validation has finished yet"));
+        }
+        return ResponseEntity.ok(report);
+    }
+}
@@ -0,0 +1,36 @@
+package com.grafana.demo.controller;
+
+import com.grafana.demo.cluster.ClusterCoordinator;
+import com.grafana.demo.cluster.ClusterPlan;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/cluster")
+@ConditionalOnProperty(prefix = "cluster", name = "enabled", havingValue = "true")
+public class ClusterController {
+
+    private final ClusterCoordinator coordinator;
+
+    public ClusterController(ClusterCoordinator coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    @GetMapping("/plan")
+    public ResponseEntity<ClusterPlan> getPlan() {
+        ClusterPlan plan = coordinator.currentPlan();
+        return plan != null ? ResponseEntity.ok(plan) : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/join")
+    public ResponseEntity<ClusterPlan> join(@RequestBody ClusterPlan.Member member) {
+        try {
+            return ResponseEntity.ok(coordinator.join(member));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+}
@@ -1,16 +1,28 @@
 package com.grafana.demo.controller;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+import jakarta.servlet.http.HttpServletRequest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.grafana.demo.pressure.MemoryPressureMonitor;
+import com.grafana.demo.pressure.PressureLevel;
+import com.grafana.demo.service.PayloadMode;
+import com.grafana.demo.service.StreamingPayload;
+import com.grafana.demo.telemetry.PayloadMetrics;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 @RestController
 @RequestMapping("/api/demo")
@@ -18,6 +30,17 @@ public class DemoController {
 
     private static final Logger logger = LoggerFactory.getLogger(DemoController.class);
     private final Random random = new Random();
+    private final StreamingPayload payloads;
+    private final PayloadMetrics payloadMetrics;
+    private final MemoryPressureMonitor pressure;
+
+    public DemoController(StreamingPayload payloads,
+                          PayloadMetrics payloadMetrics,
+                          MemoryPressureMonitor pressure) {
+        this.payloads = payloads;
+        this.payloadMetrics = payloadMetrics;
+        this.pressure = pressure;
+    }
 
     @GetMapping("/fast")
     public ResponseEntity<Map<String, Object>> getFastResponse() {
@@ -60,7 +83,23 @@ public class DemoController {
     public ResponseEntity<Map<String, Object>> postData(@RequestBody(required = false) Map<String, Object> payload) {
         logger.debug("Processing POST request with payload size: {}",
                 payload != null ? payload.size() : 0);
+        return dataCreated();
+    }
 
+    @PostMapping("/data/stream")
+    public ResponseEntity<Map<String, Object>> postDataStream(HttpServletRequest request) throws IOException {
+        StreamingPayload.ScanResult payload;
+        try {
+            payload = scanPayload(request);
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().body(createResponse("Invalid data format"));
+        }
+        logger.debug("Processing streamed POST request with {} values in {} bytes",
+                payload.values(), payload.bytes());
+        return dataCreated();
+    }
+
+    private ResponseEntity<Map<String, Object>> dataCreated() {
         // 90% success, 10% error
         if (random.nextFloat() < 0.9) {
             return ResponseEntity.status(HttpStatus.CREATED)
@@ -78,7 +117,25 @@ public class DemoController {
             @RequestBody(required = false) Map<String, Object> payload) {
 
         logger.debug("Processing PUT request for id: {}", id);
+        return dataUpdated();
+    }
 
+    @PutMapping("/data/stream/{id}")
+    public ResponseEntity<Map<String, Object>> updateDataStream(
+            @PathVariable String id,
+            HttpServletRequest request) throws IOException {
+
+        StreamingPayload.ScanResult payload;
+        try {
+            payload = scanPayload(request);
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().body(createResponse("Invalid data format"));
+        }
+        logger.debug("Processing streamed PUT request for id: {} with {} values", id, payload.values());
+        return dataUpdated();
+    }
+
+    private ResponseEntity<Map<String, Object>> dataUpdated() {
         // 80% success, 15% not found, 5% server error
         float statusRoll = random.nextFloat();
         if (statusRoll < 0.8) {
@@ -107,7 +164,25 @@ public class DemoController {
         }
     }
 
+    /**
+     * Parses a request body with the streaming parser, without binding it to any object
+     */
+    private StreamingPayload.ScanResult scanPayload(HttpServletRequest request) throws IOException {
+        long start = PayloadMetrics.threadCpuNanos();
+        StreamingPayload.ScanResult payload = payloads.scan(request.getInputStream());
+        payloadMetrics.record(PayloadMetrics.Side.SERVER, PayloadMode.STREAMING,
+                PayloadMetrics.threadCpuNanos() - start, payload.bytes());
+        return payload;
+    }
+
     private Map<String, Object> createResponse(String message) {
+        if (pressure.isAtLeast(PressureLevel.ELEVATED)) {
+            // Simplified response under memory pressure: no id or timestamp, a single small immutable map
+            pressure.recordDegraded();
+            RequestContextHolder.currentRequestAttributes().setAttribute(
+                    MemoryPressureMonitor.DEGRADED_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            return Map.of("message", message);
+        }
         Map<String, Object> response = new HashMap<>();
         response.put("id", UUID.randomUUID().toString());
         response.put("message", message);
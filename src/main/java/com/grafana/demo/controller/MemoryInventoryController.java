@@ -0,0 +1,27 @@
+package com.grafana.demo.controller;
+
+import java.util.Map;
+
+import com.grafana.demo.service.HeldObjectInventory;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/memory")
+public class MemoryInventoryController {
+
+    private final HeldObjectInventory inventory;
+
+    public MemoryInventoryController(HeldObjectInventory inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * What the memory simulator currently retains, by kind and age, without a heap dump
+     */
+    @GetMapping("/inventory")
+    public ResponseEntity<Map<String, Object>> getInventory() {
+        return ResponseEntity.ok(inventory.snapshot());
+    }
+}
@@ -0,0 +1,48 @@
+package com.grafana.demo.controller;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Map;
+
+import com.grafana.demo.telemetry.FlightRecorderService;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/recording")
+public class RecordingController {
+
+    private final FlightRecorderService flightRecorder;
+
+    public RecordingController(FlightRecorderService flightRecorder) {
+        this.flightRecorder = flightRecorder;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(flightRecorder.status());
+    }
+
+    @PostMapping("/start")
+    public ResponseEntity<Map<String, Object>> startRecording() throws IOException, ParseException {
+        return ResponseEntity.ok(flightRecorder.start());
+    }
+
+    @PostMapping("/dump")
+    public ResponseEntity<Map<String, Object>> dumpRecording() throws IOException {
+        try {
+            Path file = flightRecorder.dump();
+            return ResponseEntity.ok(Map.of("file", file.toString()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<Map<String, Object>> stopRecording() {
+        return ResponseEntity.ok(flightRecorder.stop());
+    }
+}
@@ -0,0 +1,98 @@
+package com.grafana.demo.controller;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import com.grafana.demo.report.RunComparison;
+import com.grafana.demo.report.RunRecorder;
+import com.grafana.demo.report.RunReport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/runs")
+public class RunController {
+
+    private final RunRecorder recorder;
+    private final double defaultThreshold;
+
+    public RunController(RunRecorder recorder,
+                         @Value("${runs.regression-threshold:0.1}") double defaultThreshold) {
+        this.recorder = recorder;
+        this.defaultThreshold = defaultThreshold;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() throws IOException {
+        Map<String, Object> status = recorder.status();
+        status.put("runs", recorder.list());
+        return ResponseEntity.ok(status);
+    }
+
+    @PostMapping("/start")
+    public ResponseEntity<Map<String, Object>> startRun(@RequestParam(required = false) String name,
+                                                        @RequestParam(required = false) String phase) {
+        try {
+            return ResponseEntity.ok(recorder.start(name, phase));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Ends the current workload phase and starts the next one
+     */
+    @PostMapping("/phase")
+    public ResponseEntity<Object> nextPhase(@RequestParam(required = false) String name) {
+        try {
+            return ResponseEntity.ok(recorder.phase(name));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<Map<String, Object>> stopRun() throws IOException {
+        try {
+            Path file = recorder.stop();
+            return ResponseEntity.ok(Map.of("file", file.toString()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{name}")
+    public ResponseEntity<Object> getRun(@PathVariable String name) throws IOException {
+        try {
+            return ResponseEntity.ok(recorder.load(name));
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Unknown run: " + name));
+        }
+    }
+
+    /**
+     * Diffs two recorded runs and flags metrics that got worse by more than the threshold
+     */
+    @GetMapping("/compare")
+    public ResponseEntity<Map<String, Object>> compareRuns(@RequestParam String baseline,
+                                                           @RequestParam String candidate,
+                                                           @RequestParam(required = false) Double threshold)
+            throws IOException {
+        RunReport baselineRun;
+        RunReport candidateRun;
+        try {
+            baselineRun = recorder.load(baseline);
+            candidateRun = recorder.load(candidate);
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Unknown run: " + e.getMessage()));
+        }
+        return ResponseEntity.ok(RunComparison.compare(baselineRun, candidateRun,
+                threshold != null ? threshold : defaultThreshold));
+    }
+}
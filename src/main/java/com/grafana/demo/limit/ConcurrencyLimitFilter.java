@@ -0,0 +1,189 @@
+package com.grafana.demo.limit;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.grafana.demo.service.JitWarmup;
+import com.grafana.demo.telemetry.JfrRequestFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Sheds excess load on the demo API before it ties up Tomcat threads.
+ * <p>
+ * Each endpoint group has its own {@link GradientLimit}, so a pile-up of
+ * {@code /slow} calls cannot drag the other groups down with it. Requests over
+ * the limit are rejected immediately with {@code 503} and a
+ * {@code Retry-After} header. {@code /fast} and everything outside
+ * {@code /api/demo} (health checks, metrics scrapes) form the priority lane
+ * and are never shed.
+ * <p>
+ * Tomcat's worker threads are split evenly between the groups and the
+ * priority lane, and each group's limit is capped at its share, so the
+ * limited groups can never occupy every thread. The latency fed into a limit
+ * includes the time the request waited before reaching this filter, taken
+ * from its {@value #REQUEST_START_HEADER} header: once Tomcat starts queueing,
+ * that wait grows long before the handling time does.
+ */
+@Component
+@ConditionalOnProperty(prefix = "limiter", name = "enabled", havingValue = "true")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    /**
+     * Header carrying the time a request was sent as {@code t=<epoch microseconds>},
+     * the convention load balancers use. The traffic simulator sets it on every request.
+     */
+    public static final String REQUEST_START_HEADER = "X-Request-Start";
+
+    private static final String API_PREFIX = "/api/demo/";
+
+    /**
+     * Longer waits are taken to be clock skew between client and server and ignored
+     */
+    private static final long MAX_QUEUE_WAIT_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    /**
+     * Endpoint groups with independent limits
+     */
+    enum EndpointGroup { SLOW, FLAKY, DATA }
+
+    private final Map<EndpointGroup, GradientLimit> limits = new EnumMap<>(EndpointGroup.class);
+    private final Map<EndpointGroup, Counter> accepted = new EnumMap<>(EndpointGroup.class);
+    private final Map<EndpointGroup, Counter> rejected = new EnumMap<>(EndpointGroup.class);
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(MeterRegistry registry,
+                                  @Value("${limiter.initial-limit:20}") int initialLimit,
+                                  @Value("${limiter.min-limit:4}") int minLimit,
+                                  @Value("${limiter.max-limit:0}") int maxLimit,
+                                  @Value("${limiter.retry-after-seconds:1}") int retryAfterSeconds,
+                                  @Value("${server.tomcat.threads.max:200}") int tomcatThreads) {
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+
+        // One share of the worker threads per group, and one for the priority lane
+        int threadShare = Math.max(minLimit, tomcatThreads / (EndpointGroup.values().length + 1));
+        int groupMaxLimit = maxLimit > 0 ? Math.min(maxLimit, threadShare) : threadShare;
+        int groupInitialLimit = Math.min(initialLimit, groupMaxLimit);
+        logger.info("Concurrency limits per group: initial {}, min {}, max {} ({} Tomcat threads)",
+                groupInitialLimit, minLimit, groupMaxLimit, tomcatThreads);
+
+        for (EndpointGroup group : EndpointGroup.values()) {
+            GradientLimit limit = new GradientLimit(groupInitialLimit, minLimit, groupMaxLimit);
+            String tag = group.name().toLowerCase();
+
+            limits.put(group, limit);
+            Gauge.builder("limiter.limit", limit, GradientLimit::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("group", tag)
+                    .register(registry);
+            Gauge.builder("limiter.inflight", limit, GradientLimit::getInFlight)
+                    .description("Requests currently being handled")
+                    .tag("group", tag)
+                    .register(registry);
+            accepted.put(group, requestCounter(registry, tag, "accepted"));
+            rejected.put(group, requestCounter(registry, tag, "rejected"));
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String group, String outcome) {
+        return Counter.builder("limiter.requests")
+                .description("Requests seen by the concurrency limiter")
+                .tag("group", group)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        EndpointGroup group = groupOf(request.getRequestURI());
+        // Warm-up requests would teach the limits the latency of cold code
+        if (group == null || JitWarmup.isWarmupRequest(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long queueWaitNanos = queueWaitNanos(request);
+        GradientLimit limit = limits.get(group);
+        if (!limit.tryAcquire()) {
+            rejected.get(group).increment();
+            logger.debug("Shedding {} {} (limit {})", request.getMethod(), request.getRequestURI(), limit.getLimit());
+            request.setAttribute(JfrRequestFilter.SHED_BY_ATTRIBUTE, "concurrency-limit");
+            reject(response);
+            return;
+        }
+
+        accepted.get(group).increment();
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limit.release(queueWaitNanos + System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Time between the client sending the request and it reaching this filter,
+     * {@code 0} if the request does not say when it was sent
+     */
+    static long queueWaitNanos(HttpServletRequest request) {
+        String header = request.getHeader(REQUEST_START_HEADER);
+        if (header == null || !header.startsWith("t=")) {
+            return 0;
+        }
+        try {
+            long sentMicros = Long.parseLong(header.substring(2).trim());
+            long waitMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()) - sentMicros;
+            if (waitMicros <= 0 || waitMicros > MAX_QUEUE_WAIT_MICROS) {
+                return 0;
+            }
+            return TimeUnit.MICROSECONDS.toNanos(waitMicros);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Resolves the limited group for a request path, or {@code null} for the priority lane
+     */
+    static EndpointGroup groupOf(String uri) {
+        if (!uri.startsWith(API_PREFIX)) {
+            return null;
+        }
+        String path = uri.substring(API_PREFIX.length());
+        if (path.startsWith("slow")) {
+            return EndpointGroup.SLOW;
+        } else if (path.startsWith("flaky")) {
+            return EndpointGroup.FLAKY;
+        } else if (path.startsWith("data")) {
+            return EndpointGroup.DATA;
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"Server overloaded, retry later\"}");
+    }
+}
@@ -0,0 +1,98 @@
+package com.grafana.demo.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limit in the style of a gradient limiter.
+ * <p>
+ * A long-term exponential average of the request latency is compared with
+ * each new sample. While samples stay close to the long-term average the
+ * limit grows by roughly {@code sqrt(limit)}; when latency rises above it the
+ * limit shrinks proportionally, down to half per adjustment. Growth is only
+ * allowed while at least half the limit is in use, decreases always apply.
+ * The long-term
+ * average slowly follows the samples, so a permanently slower endpoint settles
+ * at a new steady state instead of being throttled forever.
+ */
+public class GradientLimit {
+
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private double longRttNanos;
+    private int samples;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Reserves a slot for a new request
+     *
+     * @return {@code false} if the limit has been reached and the request should be rejected
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a slot reserved by {@link #tryAcquire()} and feeds the observed
+     * latency into the limit
+     */
+    public void release(long rttNanos) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        onSample(rttNanos, inFlightAtCompletion);
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtCompletion) {
+        // Warm up the long-term average with a plain mean before switching to the EMA
+        if (samples < LONG_WINDOW) {
+            samples++;
+            longRttNanos += (rttNanos - longRttNanos) / samples;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) * 2.0 / (LONG_WINDOW + 1);
+        }
+
+        double currentLimit = limit;
+
+        // Let the long-term average recover quickly after a latency spike has passed
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / rttNanos));
+        double newLimit = currentLimit * gradient + Math.sqrt(currentLimit);
+        newLimit = currentLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+
+        // The limit can only be trusted to grow when it is actually being used
+        if (inFlightAtCompletion < currentLimit / 2) {
+            newLimit = Math.min(newLimit, currentLimit);
+        }
+
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,296 @@
+package com.grafana.demo.pressure;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared heap pressure signal for the simulators and the request path.
+ * <p>
+ * Fed by two kinds of JMX notifications: usage-threshold notifications of the
+ * old generation pools, which raise the level as soon as occupancy crosses
+ * the critical threshold (before the next collection), and GC notifications,
+ * which give the occupancy left after each collection and the share of wall
+ * time spent in GC pauses. The level rises immediately and only falls again
+ * once nothing has called for it for {@code pressure.recovery-ms}, so
+ * consumers do not flap between levels. The level is also re-evaluated every
+ * second on a dedicated thread, so the simulators, which keep the shared
+ * scheduler busy under load, cannot hold it back.
+ */
+@Component
+public class MemoryPressureMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(MemoryPressureMonitor.class);
+
+    /**
+     * Request attribute marking a request that was answered with a simplified response
+     */
+    public static final String DEGRADED_ATTRIBUTE = MemoryPressureMonitor.class.getName() + ".degraded";
+
+    private static final long EVALUATION_INTERVAL_MS = 1000;
+
+    private final boolean enabled;
+    private final double elevatedOccupancy;
+    private final double criticalOccupancy;
+    private final double elevatedGcOverhead;
+    private final double criticalGcOverhead;
+    private final long gcWindowNanos;
+    private final long recoveryNanos;
+
+    // Old generation pools: the only ones whose occupancy after GC says anything about pressure
+    private final List<MemoryPoolMXBean> pools = new ArrayList<>();
+    private final List<NotificationEmitter> gcEmitters = new ArrayList<>();
+    private final NotificationListener usageListener = this::onUsageThreshold;
+    private final NotificationListener gcListener = this::onGarbageCollection;
+    private final ScheduledExecutorService evaluator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "memory-pressure");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // End time and duration of recent GC pauses, in nanos
+    private final Deque<long[]> pauses = new ArrayDeque<>();
+
+    private final Map<PressureLevel, Long> nanosInLevel = new EnumMap<>(PressureLevel.class);
+    private final Map<PressureLevel, Counter> transitions = new EnumMap<>(PressureLevel.class);
+    private final Map<PressureLevel, Counter> degraded = new EnumMap<>(PressureLevel.class);
+
+    private volatile PressureLevel level = PressureLevel.NORMAL;
+    private long levelSince = System.nanoTime();
+    // Last time the current level (or a higher one) was called for
+    private long lastConfirmed;
+
+    public MemoryPressureMonitor(MeterRegistry registry,
+                                 @Value("${pressure.enabled:true}") boolean enabled,
+                                 @Value("${pressure.elevated-occupancy:0.7}") double elevatedOccupancy,
+                                 @Value("${pressure.critical-occupancy:0.85}") double criticalOccupancy,
+                                 @Value("${pressure.elevated-gc-overhead:0.1}") double elevatedGcOverhead,
+                                 @Value("${pressure.critical-gc-overhead:0.25}") double criticalGcOverhead,
+                                 @Value("${pressure.gc-window-ms:10000}") long gcWindowMillis,
+                                 @Value("${pressure.recovery-ms:5000}") long recoveryMillis) {
+        this.enabled = enabled;
+        this.elevatedOccupancy = elevatedOccupancy;
+        this.criticalOccupancy = criticalOccupancy;
+        this.elevatedGcOverhead = elevatedGcOverhead;
+        this.criticalGcOverhead = criticalGcOverhead;
+        this.gcWindowNanos = TimeUnit.MILLISECONDS.toNanos(gcWindowMillis);
+        this.recoveryNanos = TimeUnit.MILLISECONDS.toNanos(recoveryMillis);
+
+        for (PressureLevel pressure : PressureLevel.values()) {
+            nanosInLevel.put(pressure, 0L);
+            FunctionCounter.builder("memory.pressure.time", this, m -> m.secondsIn(pressure))
+                    .description("Time spent at each memory pressure level")
+                    .baseUnit("seconds")
+                    .tag("level", pressure.tagValue())
+                    .register(registry);
+            transitions.put(pressure, Counter.builder("memory.pressure.transitions")
+                    .description("Changes of the memory pressure level, by the level entered")
+                    .tag("level", pressure.tagValue())
+                    .register(registry));
+            degraded.put(pressure, Counter.builder("memory.pressure.degraded")
+                    .description("Requests shed or answered with a simplified response because of memory pressure")
+                    .tag("level", pressure.tagValue())
+                    .register(registry));
+        }
+        Gauge.builder("memory.pressure.level", this, m -> m.level.ordinal())
+                .description("Current memory pressure level: 0 normal, 1 elevated, 2 critical")
+                .register(registry);
+        Gauge.builder("memory.pressure.occupancy", this, MemoryPressureMonitor::occupancyAfterGc)
+                .description("Highest old generation occupancy after the last collection, relative to its maximum")
+                .register(registry);
+        Gauge.builder("memory.pressure.gc.overhead", this, m -> m.gcOverhead(System.nanoTime()))
+                .description("Share of wall time spent in GC pauses over the GC window")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            logger.info("Memory pressure monitoring disabled");
+            return;
+        }
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long max = pool.getUsage().getMax();
+            if (pool.getType() != MemoryType.HEAP || !pool.isUsageThresholdSupported() || max <= 0) {
+                continue;
+            }
+            pools.add(pool);
+            pool.setUsageThreshold((long) (max * criticalOccupancy));
+        }
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(usageListener, null, null);
+
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(gcListener, null, null);
+                gcEmitters.add(emitter);
+            }
+        }
+
+        evaluator.scheduleAtFixedRate(this::evaluate, EVALUATION_INTERVAL_MS, EVALUATION_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+
+        logger.info("Memory pressure monitoring started on {}: occupancy {}/{}, GC overhead {}/{}",
+                pools.stream().map(MemoryPoolMXBean::getName).toList(),
+                elevatedOccupancy, criticalOccupancy, elevatedGcOverhead, criticalGcOverhead);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!enabled) {
+            return;
+        }
+        evaluator.shutdownNow();
+        try {
+            ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(usageListener);
+            for (NotificationEmitter emitter : gcEmitters) {
+                emitter.removeNotificationListener(gcListener);
+            }
+        } catch (ListenerNotFoundException e) {
+            logger.debug("Memory pressure listener already removed", e);
+        }
+    }
+
+    public PressureLevel level() {
+        return level;
+    }
+
+    public boolean isAtLeast(PressureLevel pressure) {
+        return level.isAtLeast(pressure);
+    }
+
+    /**
+     * Counts a request that was shed or simplified at the current level
+     */
+    public void recordDegraded() {
+        degraded.get(level).increment();
+    }
+
+    private void onUsageThreshold(Notification notification, Object handback) {
+        if (MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+            MemoryNotificationInfo info = MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+            logger.warn("Memory pool '{}' above {}% of its maximum", info.getPoolName(),
+                    Math.round(criticalOccupancy * 100));
+            update(PressureLevel.CRITICAL);
+        }
+    }
+
+    private void onGarbageCollection(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        // Concurrent cycles (ZGC cycles, G1 concurrent marking) do not stop the application
+        if (!info.getGcName().contains("Cycles") && !info.getGcName().contains("Concurrent")) {
+            synchronized (pauses) {
+                long duration = TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration());
+                pauses.addLast(new long[] { System.nanoTime(), duration });
+            }
+        }
+        evaluate();
+    }
+
+    /**
+     * Re-evaluates the level even when no collections happen, so it can fall back after recovery
+     */
+    private void evaluate() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        double occupancy = occupancyAfterGc();
+        double overhead = gcOverhead(now);
+
+        PressureLevel target = PressureLevel.NORMAL;
+        if (occupancy >= criticalOccupancy || overhead >= criticalGcOverhead) {
+            target = PressureLevel.CRITICAL;
+        } else if (occupancy >= elevatedOccupancy || overhead >= elevatedGcOverhead) {
+            target = PressureLevel.ELEVATED;
+        }
+        update(target);
+    }
+
+    private synchronized void update(PressureLevel target) {
+        long now = System.nanoTime();
+        PressureLevel current = level;
+        if (target.compareTo(current) >= 0) {
+            lastConfirmed = now;
+            if (target == current) {
+                return;
+            }
+        } else if (now - lastConfirmed < recoveryNanos) {
+            return;
+        }
+
+        nanosInLevel.merge(current, now - levelSince, Long::sum);
+        levelSince = now;
+        level = target;
+        transitions.get(target).increment();
+        logger.info("Memory pressure {} -> {} (occupancy after GC {}%, GC overhead {}%)", current, target,
+                Math.round(occupancyAfterGc() * 100), Math.round(gcOverhead(now) * 100));
+    }
+
+    private synchronized double secondsIn(PressureLevel pressure) {
+        long nanos = nanosInLevel.get(pressure);
+        if (pressure == level) {
+            nanos += System.nanoTime() - levelSince;
+        }
+        return nanos / 1e9;
+    }
+
+    private double occupancyAfterGc() {
+        double occupancy = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if (afterGc != null && afterGc.getMax() > 0) {
+                occupancy = Math.max(occupancy, (double) afterGc.getUsed() / afterGc.getMax());
+            }
+        }
+        return occupancy;
+    }
+
+    private double gcOverhead(long now) {
+        long paused = 0;
+        synchronized (pauses) {
+            while (!pauses.isEmpty() && now - pauses.peekFirst()[0] > gcWindowNanos) {
+                pauses.removeFirst();
+            }
+            for (long[] pause : pauses) {
+                paused += pause[1];
+            }
+        }
+        return (double) paused / gcWindowNanos;
+    }
+}
@@ -0,0 +1,37 @@
+package com.grafana.demo.pressure;
+
+/**
+ * Heap pressure as seen by {@link MemoryPressureMonitor}, in increasing order of severity
+ */
+public enum PressureLevel {
+    /** Old generation occupancy and GC overhead are below the elevated thresholds */
+    NORMAL(1.0),
+    /** Occupancy after GC or GC overhead is high: stop adding load, simplify responses */
+    ELEVATED(0.5),
+    /** The heap is close to full or GC is taking over: shed what can be shed */
+    CRITICAL(0.25);
+
+    private final double loadFactor;
+
+    PressureLevel(double loadFactor) {
+        this.loadFactor = loadFactor;
+    }
+
+    /**
+     * Share of their normal load the simulators generate at this level
+     */
+    public double loadFactor() {
+        return loadFactor;
+    }
+
+    public boolean isAtLeast(PressureLevel level) {
+        return compareTo(level) >= 0;
+    }
+
+    /**
+     * Lower-case name used as a metric tag value
+     */
+    public String tagValue() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,74 @@
+package com.grafana.demo.pressure;
+
+import java.io.IOException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.grafana.demo.telemetry.JfrRequestFilter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Rejects {@code /slow} and the {@code /data} writes with {@code 503} and a
+ * {@code Retry-After} header while memory pressure is critical.
+ * <p>
+ * Runs as a filter, ahead of Spring MVC's argument resolution, so a shed
+ * request never has its body read or bound. Ordered after the response cache,
+ * which can still answer {@code /slow} without allocating, and before the
+ * concurrency limiter, so shed requests do not take a limiter slot.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 5)
+public class PressureSheddingFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(PressureSheddingFilter.class);
+
+    private static final String SLOW_PATH = "/api/demo/slow";
+    private static final String DATA_PATH = "/api/demo/data";
+
+    private final MemoryPressureMonitor pressure;
+    private final String retryAfterSeconds;
+
+    public PressureSheddingFilter(MemoryPressureMonitor pressure,
+                                  @Value("${pressure.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.pressure = pressure;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return switch (request.getMethod()) {
+            case "GET" -> !uri.equals(SLOW_PATH);
+            case "POST", "PUT" -> !uri.startsWith(DATA_PATH);
+            default -> true;
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!pressure.isAtLeast(PressureLevel.CRITICAL)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        pressure.recordDegraded();
+        request.setAttribute(JfrRequestFilter.SHED_BY_ATTRIBUTE, "memory-pressure");
+        logger.debug("Shedding {} {} under memory pressure", request.getMethod(), request.getRequestURI());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"message\":\"Shedding load under memory pressure\"}");
+    }
+}
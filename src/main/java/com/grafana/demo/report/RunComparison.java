@@ -0,0 +1,128 @@
+package com.grafana.demo.report;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diffs two {@link RunReport}s phase by phase and flags regressions.
+ * <p>
+ * Phases are matched by name, falling back to their position for generated
+ * names. A metric regresses when it gets worse by more than the threshold,
+ * relative to the baseline (for error rates: in absolute percentage points).
+ * Latency percentiles of endpoints with fewer than
+ * {@link #MIN_REQUESTS_FOR_PERCENTILES} requests in either run are skipped,
+ * since their tails are noise.
+ */
+public final class RunComparison {
+
+    static final long MIN_REQUESTS_FOR_PERCENTILES = 20;
+
+    private RunComparison() {
+    }
+
+    /**
+     * A metric that differs between the runs
+     *
+     * @param change relative change against the baseline (absolute difference for error rates)
+     */
+    public record Difference(String phase, String metric, double baseline, double candidate, double change,
+                             boolean regression) {
+    }
+
+    public static Map<String, Object> compare(RunReport baseline, RunReport candidate, double threshold) {
+        List<Difference> differences = new ArrayList<>();
+        List<String> unmatched = new ArrayList<>();
+
+        for (int i = 0; i < candidate.phases().size(); i++) {
+            RunReport.PhaseSnapshot phase = candidate.phases().get(i);
+            RunReport.PhaseSnapshot base = findPhase(baseline, phase.name(), i);
+            if (base == null) {
+                unmatched.add(phase.name());
+                continue;
+            }
+            comparePhase(base, phase, threshold, differences);
+        }
+
+        List<Difference> regressions = differences.stream().filter(Difference::regression).toList();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("baseline", baseline.name());
+        result.put("candidate", candidate.name());
+        result.put("threshold", threshold);
+        result.put("regressed", !regressions.isEmpty());
+        result.put("regressions", regressions);
+        result.put("differences", differences);
+        result.put("unmatchedPhases", unmatched);
+        return result;
+    }
+
+    private static RunReport.PhaseSnapshot findPhase(RunReport run, String name, int index) {
+        for (RunReport.PhaseSnapshot phase : run.phases()) {
+            if (phase.name().equals(name)) {
+                return phase;
+            }
+        }
+        return name.startsWith("phase-") && index < run.phases().size() ? run.phases().get(index) : null;
+    }
+
+    private static void comparePhase(RunReport.PhaseSnapshot base, RunReport.PhaseSnapshot phase,
+                                     double threshold, List<Difference> differences) {
+        String name = phase.name();
+        higherIsWorse(differences, name, "cpuUsage", base.cpuUsage(), phase.cpuUsage(), threshold);
+        higherIsWorse(differences, name, "heapUsedAvgBytes", base.heapUsedAvgBytes(), phase.heapUsedAvgBytes(),
+                threshold);
+        higherIsWorse(differences, name, "heapUsedPeakBytes", base.heapUsedPeakBytes(), phase.heapUsedPeakBytes(),
+                threshold);
+        higherIsWorse(differences, name, "gcPauseMillis", base.gcPauseMillis(), phase.gcPauseMillis(), threshold);
+        higherIsWorse(differences, name, "allocationRateMb", base.allocationRateMb(), phase.allocationRateMb(),
+                threshold);
+
+        phase.endpoints().forEach((endpoint, current) -> {
+            RunReport.EndpointSnapshot previous = base.endpoints().get(endpoint);
+            if (previous == null) {
+                return;
+            }
+            String prefix = endpoint + " ";
+            lowerIsWorse(differences, name, prefix + "rps", previous.rps(), current.rps(), threshold);
+
+            double errorChange = current.errorRate() - previous.errorRate();
+            if (errorChange != 0) {
+                differences.add(new Difference(name, prefix + "errorRate", previous.errorRate(),
+                        current.errorRate(), errorChange, errorChange > threshold));
+            }
+
+            if (Math.min(previous.requests(), current.requests()) >= MIN_REQUESTS_FOR_PERCENTILES) {
+                higherIsWorse(differences, name, prefix + "p50Millis", previous.p50Millis(), current.p50Millis(),
+                        threshold);
+                higherIsWorse(differences, name, prefix + "p99Millis", previous.p99Millis(), current.p99Millis(),
+                        threshold);
+                higherIsWorse(differences, name, prefix + "p999Millis", previous.p999Millis(), current.p999Millis(),
+                        threshold);
+            }
+        });
+    }
+
+    private static void higherIsWorse(List<Difference> differences, String phase, String metric,
+                                      double baseline, double candidate, double threshold) {
+        double change = relativeChange(baseline, candidate);
+        if (change != 0) {
+            differences.add(new Difference(phase, metric, baseline, candidate, change, change > threshold));
+        }
+    }
+
+    private static void lowerIsWorse(List<Difference> differences, String phase, String metric,
+                                     double baseline, double candidate, double threshold) {
+        double change = relativeChange(baseline, candidate);
+        if (change != 0) {
+            differences.add(new Difference(phase, metric, baseline, candidate, change, -change > threshold));
+        }
+    }
+
+    private static double relativeChange(double baseline, double candidate) {
+        if (baseline == 0) {
+            return candidate == 0 ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return (candidate - baseline) / baseline;
+    }
+}
@@ -0,0 +1,305 @@
+package com.grafana.demo.report;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.OperatingSystemMXBean;
+import com.sun.management.ThreadMXBean;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Records a load-test run as a series of workload phases and writes it to a
+ * compact JSON file in {@code runs.dir}, so runs of different builds or
+ * settings can be compared with {@link RunComparison}.
+ * <p>
+ * Request latencies are recorded per endpoint into HdrHistogram interval
+ * recorders, which makes per-phase percentiles exact to three significant
+ * digits without keeping every sample. JVM figures are deltas of the
+ * platform MXBean counters between phase boundaries, except used heap, which
+ * is sampled throughout the phase. Sampling and automatic phase boundaries run
+ * on a dedicated thread, so they keep time while the simulators occupy the
+ * shared scheduler.
+ */
+@Service
+public class RunRecorder {
+    private static final Logger logger = LoggerFactory.getLogger(RunRecorder.class);
+    private static final DateTimeFormatter NAME_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String FILE_SUFFIX = ".json";
+
+    // Latencies above this are clamped; well past any client timeout
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final long SAMPLE_INTERVAL_MS = 250;
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final long autoPhaseMillis;
+
+    private final OperatingSystemMXBean os = ManagementFactory.getPlatformMXBean(OperatingSystemMXBean.class);
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    private final Map<String, EndpointRecorder> endpoints = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "run-recorder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean running;
+    private String runName;
+    private long runStartedAt;
+    private List<RunReport.PhaseSnapshot> phases;
+    private String phaseName;
+    private JvmCounters phaseStart;
+    private long heapSamples;
+    private long heapSampleSum;
+    private long heapPeak;
+
+    public RunRecorder(ObjectMapper objectMapper,
+                       @Value("${runs.dir:runs}") String directory,
+                       @Value("${runs.auto-phase-ms:0}") long autoPhaseMillis) {
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory);
+        this.autoPhaseMillis = autoPhaseMillis;
+    }
+
+    /**
+     * Records a finished request. Cheap enough to call on every request; does
+     * nothing while no run is active.
+     */
+    public void recordRequest(String endpoint, long durationNanos, int status) {
+        if (!running) {
+            return;
+        }
+        EndpointRecorder recorder = endpoints.computeIfAbsent(endpoint, e -> new EndpointRecorder());
+        recorder.latency.recordValue(Math.min(MAX_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(durationNanos)));
+        if (status >= 500) {
+            recorder.errors.increment();
+        }
+    }
+
+    public synchronized Map<String, Object> start(String name, String firstPhase) {
+        if (running) {
+            throw new IllegalStateException("Run '" + runName + "' is already being recorded");
+        }
+        runName = sanitize(name != null && !name.isBlank()
+                ? name : "run-" + LocalDateTime.now().format(NAME_TIMESTAMP));
+        runStartedAt = System.currentTimeMillis();
+        phases = new ArrayList<>();
+        beginPhase(firstPhase);
+        running = true;
+
+        logger.info("Recording run '{}'", runName);
+        return status();
+    }
+
+    /**
+     * Closes the current phase and starts the next one
+     */
+    public synchronized RunReport.PhaseSnapshot phase(String nextPhase) {
+        if (!running) {
+            throw new IllegalStateException("No run is being recorded");
+        }
+        RunReport.PhaseSnapshot snapshot = endPhase();
+        beginPhase(nextPhase);
+        return snapshot;
+    }
+
+    /**
+     * Closes the last phase and writes the run file
+     */
+    public synchronized Path stop() throws IOException {
+        if (!running) {
+            throw new IllegalStateException("No run is being recorded");
+        }
+        endPhase();
+        running = false;
+
+        Files.createDirectories(directory);
+        Path file = directory.resolve(runName + FILE_SUFFIX);
+        objectMapper.writeValue(file.toFile(), new RunReport(runName, runStartedAt, phases));
+        logger.info("Run '{}' with {} phases written to {}", runName, phases.size(), file.toAbsolutePath());
+        return file.toAbsolutePath();
+    }
+
+    @PostConstruct
+    public void startSampler() {
+        sampler.scheduleAtFixedRate(this::sample, SAMPLE_INTERVAL_MS, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopSampler() {
+        sampler.shutdownNow();
+    }
+
+    private synchronized void sample() {
+        if (!running) {
+            return;
+        }
+        try {
+            sampleHeap();
+            if (autoPhaseMillis > 0 && System.currentTimeMillis() - phaseStart.wallMillis >= autoPhaseMillis) {
+                phase(null);
+            }
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel all further samples
+            logger.error("Run '{}': sampling failed", runName, e);
+        }
+    }
+
+    private void sampleHeap() {
+        long used = memory.getHeapMemoryUsage().getUsed();
+        heapSamples++;
+        heapSampleSum += used;
+        heapPeak = Math.max(heapPeak, used);
+    }
+
+    public RunReport load(String name) throws IOException {
+        return objectMapper.readValue(directory.resolve(sanitize(name) + FILE_SUFFIX).toFile(), RunReport.class);
+    }
+
+    public List<String> list() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(file -> file.endsWith(FILE_SUFFIX))
+                    .map(file -> file.substring(0, file.length() - FILE_SUFFIX.length()))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running);
+        status.put("directory", directory.toAbsolutePath().toString());
+        if (running) {
+            status.put("name", runName);
+            status.put("phase", phaseName);
+            status.put("completedPhases", phases.size());
+        }
+        return status;
+    }
+
+    private void beginPhase(String name) {
+        phaseName = name != null && !name.isBlank() ? name : "phase-" + (phases.size() + 1);
+        phaseStart = JvmCounters.read(os, threads);
+        // Discard anything recorded before the phase started
+        endpoints.values().forEach(EndpointRecorder::reset);
+        heapSamples = 0;
+        heapSampleSum = 0;
+        heapPeak = 0;
+        sampleHeap();
+    }
+
+    private RunReport.PhaseSnapshot endPhase() {
+        JvmCounters end = JvmCounters.read(os, threads);
+        sampleHeap();
+        long durationMillis = Math.max(1, end.wallMillis - phaseStart.wallMillis);
+        double seconds = durationMillis / 1000.0;
+
+        Map<String, RunReport.EndpointSnapshot> endpointSnapshots = new TreeMap<>();
+        endpoints.forEach((endpoint, recorder) -> {
+            Histogram latency = recorder.latency.getIntervalHistogram();
+            long errors = recorder.errors.sumThenReset();
+            long requests = latency.getTotalCount();
+            if (requests > 0) {
+                endpointSnapshots.put(endpoint, new RunReport.EndpointSnapshot(
+                        requests,
+                        requests / seconds,
+                        latency.getValueAtPercentile(50) / 1000.0,
+                        latency.getValueAtPercentile(99) / 1000.0,
+                        latency.getValueAtPercentile(99.9) / 1000.0,
+                        (double) errors / requests));
+            }
+        });
+
+        int cores = os.getAvailableProcessors();
+        RunReport.PhaseSnapshot snapshot = new RunReport.PhaseSnapshot(
+                phaseName,
+                phaseStart.wallMillis,
+                durationMillis,
+                endpointSnapshots,
+                (end.cpuNanos - phaseStart.cpuNanos) / (durationMillis * 1_000_000.0 * cores),
+                heapSampleSum / heapSamples,
+                heapPeak,
+                end.gcPauseMillis - phaseStart.gcPauseMillis,
+                end.gcCount - phaseStart.gcCount,
+                (end.allocatedBytes - phaseStart.allocatedBytes) / seconds / (1024 * 1024));
+        phases.add(snapshot);
+
+        logger.info("Run '{}': phase '{}' recorded ({} s, {} endpoints)",
+                runName, phaseName, Math.round(seconds), endpointSnapshots.size());
+        return snapshot;
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static final class EndpointRecorder {
+        private final Recorder latency = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+
+        void reset() {
+            latency.reset();
+            errors.reset();
+        }
+    }
+
+    /**
+     * Cumulative JVM counters at one point in time
+     */
+    private record JvmCounters(long wallMillis, long cpuNanos, long allocatedBytes, long gcPauseMillis,
+                               long gcCount) {
+
+        static JvmCounters read(OperatingSystemMXBean os, ThreadMXBean threads) {
+            long gcPause = 0;
+            long gcCount = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                // Concurrent cycles (ZGC cycles, G1 concurrent marking) run alongside the application
+                if (gc.getName().contains("Cycles") || gc.getName().contains("Concurrent")) {
+                    continue;
+                }
+                gcPause += Math.max(0, gc.getCollectionTime());
+                gcCount += Math.max(0, gc.getCollectionCount());
+            }
+            return new JvmCounters(
+                    System.currentTimeMillis(),
+                    os.getProcessCpuTime(),
+                    threads.getTotalThreadAllocatedBytes(),
+                    gcPause,
+                    gcCount);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.grafana.demo.report;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.grafana.demo.service.JitWarmup;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Feeds every {@code /api/demo} request into the {@link RunRecorder}. Runs
+ * ahead of the cache and the concurrency limiter, so cache hits and shed
+ * requests count towards the recorded latency and error rate.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 30)
+public class RunRecorderFilter extends OncePerRequestFilter {
+
+    private static final String API_PREFIX = "/api/demo/";
+    // Path segments that look like generated ids, for requests that never reached a handler
+    private static final Pattern ID_SEGMENT = Pattern.compile("/[^/]*\\d[^/]*");
+
+    private final RunRecorder recorder;
+
+    public RunRecorderFilter(RunRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(API_PREFIX) || JitWarmup.isWarmupRequest(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            recorder.recordRequest(request.getMethod() + " " + route(request),
+                    System.nanoTime() - start, response.getStatus());
+        }
+    }
+
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            return pattern.toString();
+        }
+        return ID_SEGMENT.matcher(request.getRequestURI()).replaceAll("/{id}");
+    }
+}
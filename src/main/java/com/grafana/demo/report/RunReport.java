@@ -0,0 +1,41 @@
+package com.grafana.demo.report;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything recorded for one load-test run, as written to the run file
+ *
+ * @param name           run name, also the file name
+ * @param startedAtMillis when the run was started
+ * @param phases         one snapshot per completed workload phase, in order
+ */
+public record RunReport(String name, long startedAtMillis, List<PhaseSnapshot> phases) {
+
+    /**
+     * Key metrics of one workload phase. Rates and totals cover the phase only.
+     *
+     * @param endpoints       per endpoint, keyed by method and route, e.g. {@code GET /api/demo/slow}
+     * @param cpuUsage        average process CPU usage over the phase, 0-1 across all cores
+     * @param heapUsedAvgBytes  average heap in use over the phase, sampled every 250 ms
+     * @param heapUsedPeakBytes highest sampled heap in use during the phase
+     * @param gcPauseMillis   time the collectors paused the application during the phase
+     * @param gcCount         stop-the-world collections during the phase
+     * @param allocationRateMb bytes allocated by all threads per second, in MB
+     */
+    public record PhaseSnapshot(String name, long startedAtMillis, long durationMillis,
+                                Map<String, EndpointSnapshot> endpoints,
+                                double cpuUsage, long heapUsedAvgBytes, long heapUsedPeakBytes,
+                                long gcPauseMillis, long gcCount,
+                                double allocationRateMb) {
+    }
+
+    /**
+     * Request rate, latency percentiles and error rate of one endpoint over a phase
+     *
+     * @param errorRate fraction of requests answered with a 5xx status
+     */
+    public record EndpointSnapshot(long requests, double rps, double p50Millis, double p99Millis,
+                                   double p999Millis, double errorRate) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.grafana.demo.retention;
+
+/**
+ * Object size classes allocated by the {@link RetentionEngine}. The values
+ * here are the defaults; each can be overridden with
+ * {@code retention.<class>.object-bytes}, {@code .rate-mb} and {@code .lifetime}.
+ */
+public enum AllocationClass {
+    /** Many small, mostly short-lived objects, collected in the young generation */
+    SMALL(128, 20, "exponential:50"),
+    /** Medium buffers, a fraction of which outlive a few young collections and get promoted */
+    MEDIUM(16 * 1024, 5, "bimodal:100:30000:0.1"),
+    /** Large, long-lived buffers; humongous on G1 with small regions */
+    LARGE(1024 * 1024, 1, "exponential:60000");
+
+    private final int defaultObjectBytes;
+    private final double defaultRateMb;
+    private final String defaultLifetime;
+
+    AllocationClass(int defaultObjectBytes, double defaultRateMb, String defaultLifetime) {
+        this.defaultObjectBytes = defaultObjectBytes;
+        this.defaultRateMb = defaultRateMb;
+        this.defaultLifetime = defaultLifetime;
+    }
+
+    public int defaultObjectBytes() {
+        return defaultObjectBytes;
+    }
+
+    public double defaultRateMb() {
+        return defaultRateMb;
+    }
+
+    public String defaultLifetime() {
+        return defaultLifetime;
+    }
+
+    /**
+     * Lower-case name, used in property keys and as a metric tag value
+     */
+    public String tagValue() {
+        return name().toLowerCase();
+    }
+}
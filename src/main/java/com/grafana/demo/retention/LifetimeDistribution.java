@@ -0,0 +1,50 @@
+package com.grafana.demo.retention;
+
+import java.util.SplittableRandom;
+
+/**
+ * Distribution of object lifetimes for an {@link AllocationClass}.
+ * <p>
+ * Parsed from a compact spec, with all times in milliseconds:
+ * <ul>
+ *     <li>{@code fixed:<ms>} – every object lives exactly that long</li>
+ *     <li>{@code exponential:<mean>} – memoryless lifetimes, most objects die young</li>
+ *     <li>{@code bimodal:<shortMean>:<longMean>:<longFraction>} – a mix of two exponentials,
+ *     e.g. request-scoped data plus a fraction of session-like data that survives young collections</li>
+ * </ul>
+ */
+@FunctionalInterface
+public interface LifetimeDistribution {
+
+    long sampleMillis(SplittableRandom random);
+
+    static LifetimeDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        try {
+            switch (parts[0].toLowerCase()) {
+                case "fixed": {
+                    long lifetime = Long.parseLong(parts[1]);
+                    return random -> lifetime;
+                }
+                case "exponential": {
+                    double mean = Double.parseDouble(parts[1]);
+                    return random -> exponential(random, mean);
+                }
+                case "bimodal": {
+                    double shortMean = Double.parseDouble(parts[1]);
+                    double longMean = Double.parseDouble(parts[2]);
+                    double longFraction = Double.parseDouble(parts[3]);
+                    return random -> exponential(random, random.nextDouble() < longFraction ? longMean : shortMean);
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown lifetime distribution: " + spec);
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid lifetime distribution: " + spec, e);
+        }
+    }
+
+    private static long exponential(SplittableRandom random, double mean) {
+        return (long) (-mean * Math.log(1 - random.nextDouble()));
+    }
+}
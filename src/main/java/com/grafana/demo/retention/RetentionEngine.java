@@ -0,0 +1,167 @@
+package com.grafana.demo.retention;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+/**
+ * Allocates objects of each {@link AllocationClass} at a steady rate and keeps
+ * each one reachable for a lifetime drawn from the class's
+ * {@link LifetimeDistribution}, releasing it on schedule through a
+ * {@link TimingWheel}.
+ * <p>
+ * Unlike the memory simulator's patterns, this gives a stable, tunable
+ * survivor and promotion rate, so collectors and heap settings can be
+ * compared under the same load. Allocation and expiry both run on the single
+ * {@code retention-engine} thread.
+ */
+@Service
+@Lazy
+@ConditionalOnProperty(prefix = "test", name = "retention", havingValue = "run")
+public class RetentionEngine {
+    private static final Logger logger = LoggerFactory.getLogger(RetentionEngine.class);
+
+    private static final int WHEEL_SLOTS = 4096;
+
+    private final long tickMillis;
+    private final Map<AllocationClass, ClassState> classes = new EnumMap<>(AllocationClass.class);
+    private final SplittableRandom random = new SplittableRandom();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public RetentionEngine(MeterRegistry registry,
+                           Environment environment,
+                           @Value("${retention.tick-ms:10}") long tickMillis) {
+        this.tickMillis = tickMillis;
+
+        long now = System.currentTimeMillis();
+        for (AllocationClass allocationClass : AllocationClass.values()) {
+            String prefix = "retention." + allocationClass.tagValue() + ".";
+            int objectBytes = environment.getProperty(prefix + "object-bytes", Integer.class,
+                    allocationClass.defaultObjectBytes());
+            double rateMb = environment.getProperty(prefix + "rate-mb", Double.class,
+                    allocationClass.defaultRateMb());
+            String lifetime = environment.getProperty(prefix + "lifetime", allocationClass.defaultLifetime());
+
+            ClassState state = new ClassState(registry, allocationClass, objectBytes, rateMb, lifetime,
+                    new TimingWheel<>(tickMillis, WHEEL_SLOTS, now));
+            classes.put(allocationClass, state);
+            logger.info("Retention class {}: {} byte objects at {} MB/s, lifetime {}",
+                    allocationClass, objectBytes, rateMb, lifetime);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "retention-engine");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        long last = System.currentTimeMillis();
+        try {
+            while (running) {
+                long now = System.currentTimeMillis();
+                long elapsed = now - last;
+                last = now;
+
+                for (ClassState state : classes.values()) {
+                    state.allocate(now, elapsed, random);
+                    state.expire(now);
+                }
+
+                TimeUnit.MILLISECONDS.sleep(tickMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Configuration, live objects and meters of one allocation class
+     */
+    private static final class ClassState {
+        private final int objectBytes;
+        private final double bytesPerMilli;
+        private final LifetimeDistribution lifetime;
+        private final TimingWheel<byte[]> wheel;
+
+        private final AtomicLong liveBytes = new AtomicLong();
+        private final Counter allocated;
+        private final Counter released;
+        private double carry;
+
+        private ClassState(MeterRegistry registry, AllocationClass allocationClass, int objectBytes,
+                           double rateMb, String lifetime, TimingWheel<byte[]> wheel) {
+            this.objectBytes = objectBytes;
+            this.bytesPerMilli = rateMb * 1024 * 1024 / 1000;
+            this.lifetime = LifetimeDistribution.parse(lifetime);
+            this.wheel = wheel;
+
+            String tag = allocationClass.tagValue();
+            allocated = Counter.builder("retention.allocated")
+                    .description("Bytes allocated by the retention engine")
+                    .baseUnit("bytes")
+                    .tag("class", tag)
+                    .register(registry);
+            released = Counter.builder("retention.released")
+                    .description("Bytes released by the retention engine when their lifetime ended")
+                    .baseUnit("bytes")
+                    .tag("class", tag)
+                    .register(registry);
+            Gauge.builder("retention.live", liveBytes, AtomicLong::get)
+                    .description("Bytes currently kept reachable by the retention engine")
+                    .baseUnit("bytes")
+                    .tag("class", tag)
+                    .register(registry);
+        }
+
+        void allocate(long now, long elapsedMillis, SplittableRandom random) {
+            // Carry the fractional object over, so low rates still average out exactly
+            double bytes = bytesPerMilli * elapsedMillis + carry;
+            int count = (int) (bytes / objectBytes);
+            carry = bytes - (double) count * objectBytes;
+
+            for (int i = 0; i < count; i++) {
+                wheel.schedule(new byte[objectBytes], now + lifetime.sampleMillis(random));
+            }
+            long allocatedBytes = (long) count * objectBytes;
+            allocated.increment(allocatedBytes);
+            liveBytes.addAndGet(allocatedBytes);
+        }
+
+        void expire(long now) {
+            long releasedBytes = (long) wheel.advance(now, value -> { }) * objectBytes;
+            released.increment(releasedBytes);
+            liveBytes.addAndGet(-releasedBytes);
+        }
+    }
+}
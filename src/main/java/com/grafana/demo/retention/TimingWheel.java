@@ -0,0 +1,109 @@
+package com.grafana.demo.retention;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: schedules values to expire at a point in time with
+ * O(1) insertion, and expires them in batches as time advances.
+ * <p>
+ * Each slot holds an intrusive singly linked list, so a scheduled value costs
+ * one small node. Values due more than one revolution ahead share a slot with
+ * nearer ones and are skipped until their tick comes round.
+ * <p>
+ * Not thread-safe; meant to be driven by a single thread.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final Node<T>[] slots;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int slotCount, long nowMillis) {
+        if (Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("Slot count must be a power of two: " + slotCount);
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new Node[slotCount];
+        this.mask = slotCount - 1;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedules a value to expire at the given time. Times in the past expire on the next tick.
+     */
+    public void schedule(T value, long expiresAtMillis) {
+        long tick = Math.max(expiresAtMillis / tickMillis, currentTick + 1);
+        int slot = (int) (tick & mask);
+        slots[slot] = new Node<>(value, tick, slots[slot]);
+        size++;
+    }
+
+    /**
+     * Advances the wheel to the given time, passing every value that is due to {@code onExpired}
+     *
+     * @return the number of expired values
+     */
+    public int advance(long nowMillis, Consumer<T> onExpired) {
+        long targetTick = nowMillis / tickMillis;
+        if (targetTick <= currentTick) {
+            return 0;
+        }
+
+        int expired = 0;
+        if (targetTick - currentTick >= slots.length) {
+            // Fell behind by a full revolution or more: sweep every slot once
+            currentTick = targetTick;
+            for (int slot = 0; slot < slots.length; slot++) {
+                expired += expireSlot(slot, onExpired);
+            }
+        } else {
+            while (currentTick < targetTick) {
+                currentTick++;
+                expired += expireSlot((int) (currentTick & mask), onExpired);
+            }
+        }
+        size -= expired;
+        return expired;
+    }
+
+    private int expireSlot(int slot, Consumer<T> onExpired) {
+        int expired = 0;
+        Node<T> previous = null;
+        Node<T> node = slots[slot];
+        while (node != null) {
+            Node<T> next = node.next;
+            if (node.tick <= currentTick) {
+                onExpired.accept(node.value);
+                if (previous == null) {
+                    slots[slot] = next;
+                } else {
+                    previous.next = next;
+                }
+                expired++;
+            } else {
+                previous = node;
+            }
+            node = next;
+        }
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static final class Node<T> {
+        private final T value;
+        private final long tick;
+        private Node<T> next;
+
+        private Node(T value, long tick, Node<T> next) {
+            this.value = value;
+            this.tick = tick;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.grafana.demo.service;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+
+import com.grafana.demo.sort.SortWorkloads;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * CPU-intensive kernels used by {@link CpuLoadSimulator}. Kept in a separate,
+ * always available bean so they can also be driven outside the simulator,
+ * e.g. during JIT warm-up.
+ */
+@Component
+public class CpuKernels {
+    private final Random random = new Random();
+    private final SortWorkloads sorts;
+
+    public CpuKernels(SortWorkloads sorts) {
+        this.sorts = sorts;
+    }
+
+    /**
+     * Sorts {@code size} elements with the next algorithm and input
+     * distribution configured for the {@link SortWorkloads}
+     */
+    public void sortLargeArrays(int size) {
+        sorts.sort(size);
+    }
+
+    public boolean[] findPrimes(int max) {
+        boolean[] isPrime = new boolean[max + 1];
+        Arrays.fill(isPrime, true);
+        isPrime[0] = isPrime[1] = false;
+
+        for (int i = 2; i * i <= max; i++) {
+            if (isPrime[i]) {
+                for (int j = i * i; j <= max; j += i) {
+                    isPrime[j] = false;
+                }
+            }
+        }
+        return isPrime;
+    }
+
+    public void multiplyMatrices(int size) {
+        double[][] a = new double[size][size];
+        double[][] b = new double[size][size];
+        double[][] c = new double[size][size];
+
+        // Initialize with random values
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                a[i][j] = random.nextDouble();
+                b[i][j] = random.nextDouble();
+            }
+        }
+
+        // Multiply
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                c[i][j] = 0;
+                for (int k = 0; k < size; k++) {
+                    c[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+    }
+
+    public void performStringOperations(int iterations) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < iterations; i++) {
+            sb.append(UUID.randomUUID().toString());
+            if (i % 100 == 0) {
+                sb = new StringBuilder(sb.toString().toUpperCase());
+            }
+        }
+    }
+
+    public void performComplexMath(int iterations) {
+        double result = 0;
+        for (int i = 0; i < iterations; i++) {
+            result += Math.sin(i) * Math.cos(i) / (Math.tan(i) + 0.1);
+            result = Math.pow(result, 1.01);
+            if (i % 1000 == 0) {
+                result = Math.sqrt(Math.abs(result));
+            }
+        }
+    }
+
+    public int calculateFibonacciRecursive(int n) {
+        if (n <= 1) return n;
+        return calculateFibonacciRecursive(n - 1) + calculateFibonacciRecursive(n - 2);
+    }
+}
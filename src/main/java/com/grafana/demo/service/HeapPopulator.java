@@ -0,0 +1,279 @@
+package com.grafana.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the memory simulator's structures on a dedicated {@link ForkJoinPool},
+ * so allocation spikes reach their target size in a bounded time instead of
+ * being paced by a single thread.
+ * <p>
+ * Every task works with its own {@link SplittableRandom}, split off its
+ * parent's, so there is no contention on a shared generator. Arrays and
+ * strings are filled in bulk rather than one element or character at a time.
+ */
+@Component
+@Lazy
+@ConditionalOnProperty(prefix = "memory", name = "population", havingValue = "parallel")
+public class HeapPopulator {
+    private static final Logger logger = LoggerFactory.getLogger(HeapPopulator.class);
+
+    // Work units below these sizes are done directly instead of being split further
+    private static final int FILL_CHUNK_BYTES = 256 * 1024;
+    private static final int ROW_CHUNK = 1024;
+
+    private final ForkJoinPool pool;
+
+    public HeapPopulator(@Value("${memory.population-threads:0}") int threads) {
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("heap-populator-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        logger.info("Parallel heap population enabled on {} threads", parallelism);
+    }
+
+    /**
+     * Fills an array with random bytes
+     */
+    public void fillRandom(byte[] array) {
+        pool.invoke(new FillTask(array, 0, array.length, new SplittableRandom()));
+    }
+
+    /**
+     * Creates a string of random lower-case letters
+     */
+    public String randomLetters(int length) {
+        byte[] letters = new byte[length];
+        pool.invoke(new LetterTask(letters, 0, length, new SplittableRandom()));
+        return new String(letters, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Builds object graphs of the same shape as the serial simulator, one per root, in parallel
+     */
+    public List<Map<String, Object>> objectGraphs(int roots, int bytesPerRoot, int maxDepth) {
+        SplittableRandom random = new SplittableRandom();
+        List<GraphTask> tasks = new ArrayList<>(roots);
+        for (int i = 0; i < roots; i++) {
+            tasks.add(new GraphTask(bytesPerRoot, 0, maxDepth, random.split()));
+        }
+        return pool.submit(() -> {
+            List<Map<String, Object>> graphs = new ArrayList<>(roots);
+            for (GraphTask task : ForkJoinTask.invokeAll(tasks)) {
+                graphs.add(task.join());
+            }
+            return graphs;
+        }).join();
+    }
+
+    /**
+     * Builds a row table of the same shape as the serial simulator
+     */
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> table(int numRows) {
+        Map<String, Object>[] rows = new Map[numRows];
+        pool.invoke(new RowTask(rows, 0, numRows, new SplittableRandom()));
+        return new ArrayList<>(Arrays.asList(rows));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static final class FillTask extends RecursiveAction {
+        private final byte[] array;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        private FillTask(byte[] array, int from, int to, SplittableRandom random) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FILL_CHUNK_BYTES) {
+                fill(array, from, to, random);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new FillTask(array, from, middle, random.split()),
+                    new FillTask(array, middle, to, random));
+        }
+    }
+
+    private static final class LetterTask extends RecursiveAction {
+        private final byte[] letters;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        private LetterTask(byte[] letters, int from, int to, SplittableRandom random) {
+            this.letters = letters;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FILL_CHUNK_BYTES) {
+                fillLetters(letters, from, to, random);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new LetterTask(letters, from, middle, random.split()),
+                    new LetterTask(letters, middle, to, random));
+        }
+    }
+
+    /**
+     * Same shape as {@code MemoryUsageSimulator.createObjectGraphNode}, with
+     * child subtrees built as subtasks
+     */
+    private static final class GraphTask extends RecursiveTask<Map<String, Object>> {
+        private final int totalBytes;
+        private final int depth;
+        private final int maxDepth;
+        private final SplittableRandom random;
+
+        private GraphTask(int totalBytes, int depth, int maxDepth, SplittableRandom random) {
+            this.totalBytes = totalBytes;
+            this.depth = depth;
+            this.maxDepth = maxDepth;
+            this.random = random;
+        }
+
+        @Override
+        protected Map<String, Object> compute() {
+            Map<String, Object> node = new HashMap<>();
+
+            if (depth >= maxDepth || totalBytes < 10240) { // 10KB minimum
+                node.put("data", randomBytes(totalBytes, random));
+                return node;
+            }
+
+            int thisNodeBytes = totalBytes / 10;
+            node.put("nodeData", randomBytes(thisNodeBytes, random));
+
+            int remainingBytes = totalBytes - thisNodeBytes;
+            int numChildren = 3 + random.nextInt(7); // 3-10 children
+            int bytesPerChild = remainingBytes / numChildren;
+
+            List<GraphTask> subtrees = new ArrayList<>();
+            List<Integer> subtreeIndexes = new ArrayList<>();
+            for (int i = 0; i < numChildren; i++) {
+                if (random.nextFloat() < 0.7) { // 70% chance for recursive node
+                    subtrees.add(new GraphTask(bytesPerChild, depth + 1, maxDepth, random.split()));
+                    subtreeIndexes.add(i);
+                } else {
+                    node.put("child-" + i, randomBytes(bytesPerChild, random));
+                }
+            }
+            invokeAll(subtrees);
+            for (int i = 0; i < subtrees.size(); i++) {
+                node.put("child-" + subtreeIndexes.get(i), subtrees.get(i).join());
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Same row layout as {@code MemoryUsageSimulator.simulateDataProcessingHeap}
+     */
+    private static final class RowTask extends RecursiveAction {
+        private final Map<String, Object>[] rows;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        private RowTask(Map<String, Object>[] rows, int from, int to, SplittableRandom random) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROW_CHUNK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RowTask(rows, from, middle, random.split()),
+                        new RowTask(rows, middle, to, random));
+                return;
+            }
+
+            for (int r = from; r < to; r++) {
+                Map<String, Object> row = new HashMap<>();
+                // Not UUID.randomUUID(), which would serialize all tasks on the shared SecureRandom
+                row.put("id", new UUID(random.nextLong(), random.nextLong()).toString());
+                row.put("timestamp", System.currentTimeMillis());
+                row.put("value", random.nextDouble() * 1000);
+                row.put("data", randomBytes(512 + random.nextInt(1024), random)); // 0.5-1.5KB payload
+
+                byte[] text = new byte[100 + random.nextInt(400)]; // 100-500 chars
+                fillLetters(text, 0, text.length, random);
+                row.put("text", new String(text, StandardCharsets.ISO_8859_1));
+
+                rows[r] = row;
+            }
+        }
+    }
+
+    private static byte[] randomBytes(int size, SplittableRandom random) {
+        byte[] bytes = new byte[size];
+        fill(bytes, 0, size, random);
+        return bytes;
+    }
+
+    /**
+     * Fills a range eight bytes per random draw
+     */
+    private static void fill(byte[] array, int from, int to, SplittableRandom random) {
+        int i = from;
+        for (; i + 8 <= to; i += 8) {
+            long value = random.nextLong();
+            for (int b = 0; b < 8; b++) {
+                array[i + b] = (byte) (value >>> (b * 8));
+            }
+        }
+        if (i < to) {
+            long value = random.nextLong();
+            for (; i < to; i++, value >>>= 8) {
+                array[i] = (byte) value;
+            }
+        }
+    }
+
+    private static void fillLetters(byte[] letters, int from, int to, SplittableRandom random) {
+        for (int i = from; i < to; i++) {
+            letters[i] = (byte) ('a' + random.nextInt(26));
+        }
+    }
+}
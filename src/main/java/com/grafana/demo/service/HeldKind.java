@@ -0,0 +1,42 @@
+package com.grafana.demo.service;
+
+/**
+ * Kinds of objects {@link MemoryUsageSimulator} keeps reachable, and the
+ * holder each kind lives in
+ */
+public enum HeldKind {
+    /** 10 MB chunks of a massive spike, held for a few seconds */
+    SPIKE_CHUNK("temporary"),
+    /** Large random byte arrays from aggressive growth */
+    BYTE_ARRAY("main"),
+    /** Large strings from aggressive growth */
+    STRING("main"),
+    /** Row tables from data processing */
+    TABLE("main"),
+    /** Id and timestamp indexes over the row tables */
+    INDEX("main"),
+    /** Roots of the complex object graphs */
+    OBJECT_GRAPH("cache"),
+    /** 32-96 KB fragments */
+    FRAGMENT("volatile");
+
+    private final String holder;
+
+    HeldKind(String holder) {
+        this.holder = holder;
+    }
+
+    /**
+     * Name of the collection objects of this kind are held in
+     */
+    public String holder() {
+        return holder;
+    }
+
+    /**
+     * Lower-case name used as a metric tag value
+     */
+    public String tagValue() {
+        return name().toLowerCase();
+    }
+}
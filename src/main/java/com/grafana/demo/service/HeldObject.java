@@ -0,0 +1,13 @@
+package com.grafana.demo.service;
+
+/**
+ * An object retained by {@link MemoryUsageSimulator}, together with what the
+ * {@link HeldObjectInventory} needs to account for it when it is released
+ *
+ * @param kind             what the object is
+ * @param value            the retained object itself
+ * @param bytes            estimated retained size
+ * @param allocatedAtMillis when the object was created
+ */
+public record HeldObject(HeldKind kind, Object value, long bytes, long allocatedAtMillis) {
+}
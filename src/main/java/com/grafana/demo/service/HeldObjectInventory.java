@@ -0,0 +1,207 @@
+package com.grafana.demo.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Live inventory of what the memory simulator retains: count, estimated bytes
+ * and age distribution per {@link HeldKind}.
+ * <p>
+ * Updated incrementally whenever an object is held or released, so reading it
+ * costs a few map lookups instead of a heap dump. To keep ages incremental as
+ * well, objects are counted per allocation epoch of {@link #EPOCH_MILLIS};
+ * age buckets are derived from the epochs when the inventory is read.
+ */
+@Component
+public class HeldObjectInventory {
+
+    private static final long EPOCH_MILLIS = 10_000;
+
+    /**
+     * Age buckets, by upper bound (exclusive) in milliseconds
+     */
+    public enum AgeBucket {
+        UNDER_1M(60_000, "lt_1m"),
+        UNDER_5M(5 * 60_000, "1m_5m"),
+        UNDER_15M(15 * 60_000, "5m_15m"),
+        OLDER(Long.MAX_VALUE, "gt_15m");
+
+        private final long maxAgeMillis;
+        private final String tagValue;
+
+        AgeBucket(long maxAgeMillis, String tagValue) {
+            this.maxAgeMillis = maxAgeMillis;
+            this.tagValue = tagValue;
+        }
+
+        static AgeBucket of(long ageMillis) {
+            for (AgeBucket bucket : values()) {
+                if (ageMillis < bucket.maxAgeMillis) {
+                    return bucket;
+                }
+            }
+            return OLDER;
+        }
+
+        public String tagValue() {
+            return tagValue;
+        }
+    }
+
+    private final Map<HeldKind, KindStats> stats = new EnumMap<>(HeldKind.class);
+
+    public HeldObjectInventory(MeterRegistry registry) {
+        for (HeldKind kind : HeldKind.values()) {
+            KindStats kindStats = new KindStats();
+            stats.put(kind, kindStats);
+
+            Gauge.builder("simulator.held.objects", kindStats, KindStats::count)
+                    .description("Objects retained by the memory simulator")
+                    .tag("kind", kind.tagValue())
+                    .tag("holder", kind.holder())
+                    .register(registry);
+            Gauge.builder("simulator.held.bytes", kindStats, KindStats::bytes)
+                    .description("Estimated bytes retained by the memory simulator")
+                    .baseUnit("bytes")
+                    .tag("kind", kind.tagValue())
+                    .tag("holder", kind.holder())
+                    .register(registry);
+            for (AgeBucket bucket : AgeBucket.values()) {
+                Gauge.builder("simulator.held.age.bytes", kindStats,
+                                s -> s.bytesByAge(System.currentTimeMillis())[bucket.ordinal()])
+                        .description("Estimated bytes retained by the memory simulator, by time since allocation")
+                        .baseUnit("bytes")
+                        .tag("kind", kind.tagValue())
+                        .tag("age", bucket.tagValue())
+                        .register(registry);
+            }
+        }
+    }
+
+    /**
+     * Accounts for a newly retained object and returns the handle to keep in place of it
+     */
+    public HeldObject hold(HeldKind kind, Object value, long bytes) {
+        HeldObject held = new HeldObject(kind, value, bytes, System.currentTimeMillis());
+        stats.get(kind).add(held.allocatedAtMillis() / EPOCH_MILLIS, 1, bytes);
+        return held;
+    }
+
+    /**
+     * Removes a released object from the inventory. Must be called exactly once per held object.
+     */
+    public void release(HeldObject held) {
+        if (held != null) {
+            stats.get(held.kind()).add(held.allocatedAtMillis() / EPOCH_MILLIS, -1, -held.bytes());
+        }
+    }
+
+    public void releaseAll(Collection<HeldObject> held) {
+        for (HeldObject object : held) {
+            release(object);
+        }
+    }
+
+    public long totalBytes() {
+        long total = 0;
+        for (KindStats kindStats : stats.values()) {
+            total += kindStats.bytes();
+        }
+        return total;
+    }
+
+    /**
+     * Current inventory as a JSON-friendly map
+     */
+    public Map<String, Object> snapshot() {
+        long now = System.currentTimeMillis();
+        long totalObjects = 0;
+        long totalBytes = 0;
+        List<Map<String, Object>> kinds = new ArrayList<>();
+
+        for (Map.Entry<HeldKind, KindStats> entry : stats.entrySet()) {
+            KindStats kindStats = entry.getValue();
+            Map<String, Object> ages = new LinkedHashMap<>();
+            long[][] byAge = kindStats.byAge(now);
+            for (AgeBucket bucket : AgeBucket.values()) {
+                ages.put(bucket.tagValue(), Map.of(
+                        "count", byAge[0][bucket.ordinal()],
+                        "bytes", byAge[1][bucket.ordinal()]));
+            }
+
+            Map<String, Object> kind = new LinkedHashMap<>();
+            kind.put("kind", entry.getKey().tagValue());
+            kind.put("holder", entry.getKey().holder());
+            kind.put("count", kindStats.count());
+            kind.put("bytes", kindStats.bytes());
+            kind.put("ages", ages);
+            kinds.add(kind);
+
+            totalObjects += kindStats.count();
+            totalBytes += kindStats.bytes();
+        }
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("timestamp", now);
+        snapshot.put("totalObjects", totalObjects);
+        snapshot.put("totalBytes", totalBytes);
+        snapshot.put("kinds", kinds);
+        return snapshot;
+    }
+
+    /**
+     * Totals for one kind, plus count and bytes per allocation epoch
+     */
+    private static final class KindStats {
+        private final TreeMap<Long, long[]> byEpoch = new TreeMap<>();
+        private long count;
+        private long bytes;
+
+        synchronized void add(long epoch, long countDelta, long bytesDelta) {
+            count += countDelta;
+            bytes += bytesDelta;
+
+            long[] epochStats = byEpoch.computeIfAbsent(epoch, e -> new long[2]);
+            epochStats[0] += countDelta;
+            epochStats[1] += bytesDelta;
+            if (epochStats[0] == 0) {
+                byEpoch.remove(epoch);
+            }
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+
+        /**
+         * Count ([0]) and bytes ([1]) per age bucket
+         */
+        synchronized long[][] byAge(long now) {
+            long[][] result = new long[2][AgeBucket.values().length];
+            for (Map.Entry<Long, long[]> entry : byEpoch.entrySet()) {
+                AgeBucket bucket = AgeBucket.of(now - entry.getKey() * EPOCH_MILLIS);
+                result[0][bucket.ordinal()] += entry.getValue()[0];
+                result[1][bucket.ordinal()] += entry.getValue()[1];
+            }
+            return result;
+        }
+
+        long[] bytesByAge(long now) {
+            return byAge(now)[1];
+        }
+    }
+}
@@ -1,31 +1,69 @@
 package com.grafana.demo.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grafana.demo.capture.TrafficLog;
+import com.grafana.demo.capture.TrafficRecord;
+import com.grafana.demo.cluster.ClusterCoordinator;
+import com.grafana.demo.cluster.ClusterPlan;
+import com.grafana.demo.pressure.MemoryPressureMonitor;
+import com.grafana.demo.telemetry.PayloadMetrics;
+import com.grafana.demo.telemetry.event.TrafficPatternEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.RestTemplate;
 
 @Service
+@Lazy
 @ConditionalOnProperty(prefix = "test", name = "http", havingValue = "run")
 public class HttpTrafficSimulator {
     private static final Logger logger = LoggerFactory.getLogger(HttpTrafficSimulator.class);
+
+    // Length of {"name":"replay","data":""}, subtracted when padding replayed bodies
+    private static final int REPLAY_PAYLOAD_OVERHEAD = 27;
+
     private final Random random = new Random();
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
     private final ExecutorService executorService = Executors.newFixedThreadPool(10);
 
     // Base URL for API calls (using localhost)
     private final String baseUrl = "http://localhost:8080/api/demo";
 
+    // Number of distinct items GET requests are spread over (skewed towards low item numbers)
+    @Value("${traffic.item-count:1000}")
+    private int itemCount;
+
     // Tracking IDs for PUT/DELETE operations
     private final List<String> resourceIds = Collections.synchronizedList(new ArrayList<>());
 
@@ -33,13 +71,207 @@ public class HttpTrafficSimulator {
     private enum TrafficPattern { LOW, MEDIUM, HIGH, BURST }
     private TrafficPattern currentPattern = TrafficPattern.MEDIUM;
 
+    // Coordinated load across instances (null unless cluster mode is enabled)
+    private final ClusterCoordinator cluster;
+    @Value("${cluster.cross-traffic:false}")
+    private boolean crossTraffic;
+    private final AtomicInteger nextTarget = new AtomicInteger();
+    private double requestCarry;
+
+    // Replays a traffic capture instead of generating synthetic traffic when set
+    @Value("${traffic.replay-file:}")
+    private String replayFile;
+    @Value("${traffic.replay-speed:1.0}")
+    private double replaySpeed;
+    // Replayed requests get their own workers and are dropped, not queued, when all are busy,
+    // so a backlog never shifts them away from their captured send times
+    private final ThreadPoolExecutor replayExecutor;
+    private final Counter replaySent;
+    private final Counter replayDropped;
+    private Thread replayThread;
+
+    // How POST/PUT payloads are produced, see PayloadMode
+    private final PayloadMode payloadMode;
+    private final int payloadBytes;
+    private final StreamingPayload streamingPayload;
+    private final PayloadMetrics payloadMetrics;
+    private final ObjectMapper objectMapper;
+
+    // Scales the generated request counts down while the heap is under pressure
+    private final MemoryPressureMonitor pressure;
+
+    public HttpTrafficSimulator(@Qualifier("trafficRestTemplate") RestTemplate restTemplate,
+                                ObjectProvider<ClusterCoordinator> cluster,
+                                StreamingPayload streamingPayload,
+                                PayloadMetrics payloadMetrics,
+                                ObjectMapper objectMapper,
+                                MemoryPressureMonitor pressure,
+                                MeterRegistry registry,
+                                @Value("${traffic.payload-mode:map}") String payloadMode,
+                                @Value("${traffic.payload-bytes:1024}") int payloadBytes,
+                                @Value("${traffic.replay-concurrency:20}") int replayConcurrency) {
+        this.restTemplate = restTemplate;
+        this.cluster = cluster.getIfAvailable();
+        this.streamingPayload = streamingPayload;
+        this.payloadMetrics = payloadMetrics;
+        this.objectMapper = objectMapper;
+        this.pressure = pressure;
+        this.payloadMode = PayloadMode.from(payloadMode);
+        this.payloadBytes = payloadBytes;
+
+        AtomicInteger replayThreads = new AtomicInteger();
+        this.replayExecutor = new ThreadPoolExecutor(replayConcurrency, replayConcurrency, 0, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "traffic-replay-" + replayThreads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.replaySent = replayCounter(registry, "sent");
+        this.replayDropped = replayCounter(registry, "dropped");
+    }
+
+    private static Counter replayCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("traffic.replay.requests")
+                .description("Replayed requests, dropped when no replay worker was free at their send time")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Starts replaying the configured traffic capture, if any
+     */
+    @PostConstruct
+    public void startReplay() {
+        if (!isReplaying()) {
+            return;
+        }
+        if (!(replaySpeed > 0)) {
+            logger.error("Invalid traffic.replay-speed {}, it must be positive; no traffic will be generated",
+                    replaySpeed);
+            return;
+        }
+
+        List<TrafficRecord> records;
+        try {
+            records = TrafficLog.read(Paths.get(replayFile));
+        } catch (IOException e) {
+            logger.error("Cannot read traffic capture {}, no traffic will be generated", replayFile, e);
+            return;
+        }
+        if (records.isEmpty()) {
+            logger.warn("Traffic capture {} is empty, no traffic will be generated", replayFile);
+            return;
+        }
+
+        replayThread = new Thread(() -> replay(records), "traffic-replay");
+        replayThread.setDaemon(true);
+        replayThread.start();
+    }
+
+    @PreDestroy
+    public void stopReplay() {
+        if (replayThread != null) {
+            replayThread.interrupt();
+        }
+        replayExecutor.shutdownNow();
+    }
+
+    private boolean isReplaying() {
+        return !replayFile.isBlank();
+    }
+
+    /**
+     * Plays the captured requests back in a loop, keeping their original
+     * spacing divided by the replay speed. The copies of a weighted sample are
+     * spread evenly over the gap before it, rather than sent all at once.
+     * A request that finds every replay worker busy is dropped and counted.
+     */
+    private void replay(List<TrafficRecord> records) {
+        logger.info("Replaying {} captured requests from {} at {}x speed with up to {} in flight",
+                records.size(), replayFile, replaySpeed, replayExecutor.getMaximumPoolSize());
+        try {
+            while (true) {
+                long start = System.nanoTime();
+                long offset = 0;
+                for (TrafficRecord record : records) {
+                    long gap = record.interArrivalNanos();
+
+                    // Each sample stands for weight real requests
+                    int copies = (int) record.weight();
+                    if (random.nextFloat() < record.weight() - copies) {
+                        copies++;
+                    }
+                    for (int i = 1; i <= copies; i++) {
+                        long wait = start + (long) ((offset + gap * i / copies) / replaySpeed) - System.nanoTime();
+                        if (wait > 0) {
+                            TimeUnit.NANOSECONDS.sleep(wait);
+                        }
+                        try {
+                            replayExecutor.execute(() -> replayRequest(record));
+                            replaySent.increment();
+                        } catch (RejectedExecutionException e) {
+                            if (replayExecutor.isShutdown()) {
+                                return;
+                            }
+                            replayDropped.increment();
+                        }
+                    }
+                    offset += gap;
+                }
+                logger.info("Reached the end of traffic capture {}, starting over ({} requests dropped so far)",
+                        replayFile, (long) replayDropped.count());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void replayRequest(TrafficRecord record) {
+        HttpEntity<Map<String, Object>> entity = null;
+        if (record.bodySize() > 0) {
+            // Pad a minimal JSON object to roughly the captured body size
+            int padding = Math.max(0, record.bodySize() - REPLAY_PAYLOAD_OVERHEAD);
+            entity = new HttpEntity<>(Map.of("name", "replay", "data", "x".repeat(padding)));
+        }
+
+        try {
+            ResponseEntity<Map> response = restTemplate.exchange(
+                    targetUrl() + record.path(), HttpMethod.valueOf(record.method()), entity, Map.class);
+
+            logger.debug("{} {} (replay) - Status: {}", record.method(), record.path(), response.getStatusCode());
+
+        } catch (HttpStatusCodeException e) {
+            logger.debug("{} {} (replay) - Error: {}", record.method(), record.path(), e.getStatusCode());
+        } catch (Exception e) {
+            logger.error("Error replaying HTTP request", e);
+        }
+    }
+
     /**
      * Periodically changes traffic patterns to create interesting metrics
      */
     @Scheduled(fixedRate = 60000) // Every 1 minute
     public void changeTrafficPattern() {
+        if (isReplaying()) {
+            return; // The capture determines the traffic shape
+        }
+        if (cluster != null) {
+            return; // In cluster mode the pattern follows the shared plan
+        }
         TrafficPattern[] patterns = TrafficPattern.values();
-        currentPattern = patterns[random.nextInt(patterns.length)];
+        switchPattern(patterns[random.nextInt(patterns.length)]);
+    }
+
+    private void switchPattern(TrafficPattern pattern) {
+        TrafficPattern previousPattern = currentPattern;
+        currentPattern = pattern;
+
+        TrafficPatternEvent event = new TrafficPatternEvent();
+        if (event.shouldCommit()) {
+            event.previousPattern = previousPattern.name();
+            event.pattern = currentPattern.name();
+            event.commit();
+        }
 
         logger.info("Switching to {} traffic pattern", currentPattern);
     }
@@ -49,6 +281,17 @@ public class HttpTrafficSimulator {
      */
     @Scheduled(fixedRate = 2000) // Every 2 seconds
     public void generateHttpTraffic() {
+        if (isReplaying()) {
+            return;
+        }
+        if (cluster != null) {
+            int requestCount = coordinatedRequestCount(cluster.currentPlan());
+            if (requestCount > 0) {
+                submitRequests(requestCount);
+            }
+            return;
+        }
+
         // Determine number of requests based on current pattern
         int requestCount;
         switch (currentPattern) {
@@ -70,7 +313,17 @@ public class HttpTrafficSimulator {
                 requestCount = 5; // Default
         }
 
-        logger.info("Generating {} HTTP requests", requestCount);
+        submitRequests(requestCount);
+    }
+
+    private void submitRequests(int plannedCount) {
+        int requestCount = (int) Math.ceil(plannedCount * pressure.level().loadFactor());
+        if (requestCount < plannedCount) {
+            logger.info("Generating {} HTTP requests ({} planned, memory pressure {})",
+                    requestCount, plannedCount, pressure.level());
+        } else {
+            logger.info("Generating {} HTTP requests", requestCount);
+        }
 
         // Generate requests
         for (int i = 0; i < requestCount; i++) {
@@ -78,6 +331,59 @@ public class HttpTrafficSimulator {
         }
     }
 
+    /**
+     * Derives this node's request count for the current 2-second tick from the
+     * shared cluster plan. The pattern schedule is a pure function of the plan's
+     * seed and start time, so all nodes switch patterns (and burst) together.
+     */
+    private int coordinatedRequestCount(ClusterPlan plan) {
+        long now = System.currentTimeMillis();
+        if (plan == null || !plan.isStarted(now)) {
+            return 0;
+        }
+
+        long elapsed = now - plan.startAtMillis();
+        TrafficPattern[] patterns = TrafficPattern.values();
+        TrafficPattern planned = patterns[new SplittableRandom(plan.seed() + elapsed / 60000).nextInt(patterns.length)];
+        if (planned != currentPattern) {
+            switchPattern(planned);
+        }
+
+        // Multiplier on the target rate, roughly matching the shape of the uncoordinated patterns
+        double factor;
+        switch (planned) {
+            case LOW:
+                factor = 0.25;
+                break;
+            case HIGH:
+                factor = 2.5;
+                break;
+            case BURST:
+                factor = new SplittableRandom(plan.seed() ^ (elapsed / 2000)).nextFloat() < 0.3 ? 6 : 0.6;
+                break;
+            default:
+                factor = 1;
+        }
+
+        double requests = plan.targetRpsPerNode() * factor * 2 + requestCarry;
+        int requestCount = (int) requests;
+        requestCarry = requests - requestCount;
+        return requestCount;
+    }
+
+    /**
+     * Base URL for the next request: this node, or with cross traffic enabled
+     * the next cluster member in round-robin order
+     */
+    private String targetUrl() {
+        ClusterPlan plan = cluster != null ? cluster.currentPlan() : null;
+        if (!crossTraffic || plan == null || plan.members().isEmpty()) {
+            return baseUrl;
+        }
+        List<ClusterPlan.Member> members = plan.members();
+        return members.get(Math.floorMod(nextTarget.getAndIncrement(), members.size())).url() + "/api/demo";
+    }
+
     /**
      * Makes a random HTTP request to one of our demo endpoints
      */
@@ -119,7 +425,7 @@ public class HttpTrafficSimulator {
 
         try {
             ResponseEntity<Map> response = restTemplate.getForEntity(
-                    baseUrl + endpoint, Map.class);
+                    targetUrl() + endpoint + "?item=" + nextItem(), Map.class);
 
             logger.debug("GET {} - Status: {}", endpoint, response.getStatusCode());
 
@@ -128,15 +434,22 @@ public class HttpTrafficSimulator {
         }
     }
 
+    /**
+     * Picks an item number with a heavy skew towards popular (low) items,
+     * so GET traffic has a realistic hot set
+     */
+    private int nextItem() {
+        return (int) (itemCount * Math.pow(random.nextDouble(), 3));
+    }
+
     /**
      * Makes a POST request with generated data
      */
     private void makePostRequest() {
-        Map<String, Object> payload = generateRandomPayload();
-
         try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                    baseUrl + "/data", payload, Map.class);
+            ResponseEntity<Map> response = restTemplate.execute(
+                    targetUrl() + dataPath(), HttpMethod.POST, payloadCallback(),
+                    restTemplate.responseEntityExtractor(Map.class));
 
             logger.debug("POST /data - Status: {}", response.getStatusCode());
 
@@ -154,6 +467,42 @@ public class HttpTrafficSimulator {
         }
     }
 
+    private String dataPath() {
+        return payloadMode == PayloadMode.STREAMING ? "/data/stream" : "/data";
+    }
+
+    /**
+     * Writes a random JSON payload as the request body, measuring the CPU time
+     * it takes. Streaming payloads go straight to the connection; map payloads
+     * are built and serialized the way {@code RestTemplate} would.
+     */
+    private RequestCallback payloadCallback() {
+        return request -> {
+            request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            if (payloadMode == PayloadMode.STREAMING) {
+                if (request instanceof StreamingHttpOutputMessage streaming) {
+                    streaming.setBody(this::writeStreamingPayload);
+                } else {
+                    writeStreamingPayload(request.getBody());
+                }
+            } else {
+                long start = PayloadMetrics.threadCpuNanos();
+                byte[] body = objectMapper.writeValueAsBytes(generateRandomPayload());
+                payloadMetrics.record(PayloadMetrics.Side.CLIENT, PayloadMode.MAP,
+                        PayloadMetrics.threadCpuNanos() - start, body.length);
+                request.getHeaders().setContentLength(body.length);
+                request.getBody().write(body);
+            }
+        };
+    }
+
+    private void writeStreamingPayload(OutputStream out) throws IOException {
+        long start = PayloadMetrics.threadCpuNanos();
+        long bytes = streamingPayload.write(out, payloadBytes);
+        payloadMetrics.record(PayloadMetrics.Side.CLIENT, PayloadMode.STREAMING,
+                PayloadMetrics.threadCpuNanos() - start, bytes);
+    }
+
     /**
      * Makes a PUT request to update an existing resource
      */
@@ -166,14 +515,13 @@ public class HttpTrafficSimulator {
 
         // Get a random ID from our list
         String id = resourceIds.get(random.nextInt(resourceIds.size()));
-        Map<String, Object> payload = generateRandomPayload();
 
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    baseUrl + "/data/" + id,
+            ResponseEntity<Map> response = restTemplate.execute(
+                    targetUrl() + dataPath() + "/" + id,
                     HttpMethod.PUT,
-                    new HttpEntity<>(payload),
-                    Map.class);
+                    payloadCallback(),
+                    restTemplate.responseEntityExtractor(Map.class));
 
             logger.debug("PUT /data/{} - Status: {}", id, response.getStatusCode());
 
@@ -202,7 +550,7 @@ public class HttpTrafficSimulator {
 
         try {
             ResponseEntity<Map> response = restTemplate.exchange(
-                    baseUrl + "/data/" + id,
+                    targetUrl() + "/data/" + id,
                     HttpMethod.DELETE,
                     null,
                     Map.class);
@@ -0,0 +1,261 @@
+package com.grafana.demo.service;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import com.grafana.demo.sort.SortWorkloads;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jdk.jfr.consumer.RecordingStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Drives every demo endpoint and CPU kernel through a configurable number of
+ * iterations before the simulators start, so the first minutes of the
+ * dashboards are not dominated by interpreted and C1-compiled code.
+ * <p>
+ * Until the warm-up has finished this bean reports {@code OUT_OF_SERVICE} as a
+ * health indicator, which keeps {@code /actuator/health} and the readiness
+ * group gated. Warm-up requests carry the {@value #WARMUP_HEADER} header,
+ * so the capture, cache, limiter and run recorder filters can leave them out
+ * of what they measure; the sort kernel is warmed up without recording its
+ * metrics.
+ */
+@Service
+public class JitWarmup implements HealthIndicator {
+    private static final Logger logger = LoggerFactory.getLogger(JitWarmup.class);
+
+    /**
+     * Header marking the warm-up's own requests
+     */
+    public static final String WARMUP_HEADER = "X-Warmup";
+
+    private static final String COMPILATION_EVENT = "jdk.Compilation";
+    private static final int C2_LEVEL = 4;
+
+    private final CpuKernels kernels;
+    private final SortWorkloads sorts;
+    private final MeterRegistry registry;
+    private final Environment environment;
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    private final boolean enabled;
+    private final int endpointIterations;
+    private final int kernelIterations;
+    private final int concurrency;
+
+    private volatile boolean finished;
+    private volatile WarmupReport report;
+    private volatile String failure;
+
+    public JitWarmup(CpuKernels kernels,
+                     SortWorkloads sorts,
+                     MeterRegistry registry,
+                     Environment environment,
+                     @Value("${warmup.enabled:true}") boolean enabled,
+                     @Value("${warmup.endpoint-iterations:100}") int endpointIterations,
+                     @Value("${warmup.kernel-iterations:20}") int kernelIterations,
+                     @Value("${warmup.concurrency:8}") int concurrency) {
+        this.kernels = kernels;
+        this.sorts = sorts;
+        this.registry = registry;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.endpointIterations = endpointIterations;
+        this.kernelIterations = kernelIterations;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Runs the warm-up on the calling thread. Must be called once the web
+     * server is accepting requests.
+     */
+    public WarmupReport run() {
+        if (!enabled) {
+            finished = true;
+            return null;
+        }
+
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        long startCompilationMs = compilation.isCompilationTimeMonitoringSupported()
+                ? compilation.getTotalCompilationTime() : 0;
+        long start = System.nanoTime();
+
+        LongAdder c1Compilations = new LongAdder();
+        LongAdder c2Compilations = new LongAdder();
+
+        try (RecordingStream compilations = new RecordingStream()) {
+            compilations.enable(COMPILATION_EVENT).withThreshold(Duration.ZERO).withoutStackTrace();
+            compilations.onEvent(COMPILATION_EVENT, event -> {
+                if (event.getShort("compileLevel") == C2_LEVEL) {
+                    c2Compilations.increment();
+                } else {
+                    c1Compilations.increment();
+                }
+            });
+            compilations.startAsync();
+
+            logger.info("🔥 Starting JIT warm-up: {} iterations per endpoint, {} per kernel",
+                    endpointIterations, kernelIterations);
+            warmUpEndpoints();
+            warmUpKernels();
+
+            // Flush pending events before reading the counters
+            compilations.stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("JIT warm-up interrupted", e);
+        }
+
+        long compilationMs = compilation.isCompilationTimeMonitoringSupported()
+                ? compilation.getTotalCompilationTime() - startCompilationMs : 0;
+        report = new WarmupReport(
+                Duration.ofNanos(System.nanoTime() - start),
+                c1Compilations.sum(),
+                c2Compilations.sum(),
+                Duration.ofMillis(compilationMs));
+        registerMetrics(report);
+        finished = true;
+
+        logger.info("JIT warm-up finished in {} ms: {} C1 and {} C2 compilations, {} ms compiling",
+                report.duration().toMillis(), report.c1Compilations(), report.c2Compilations(),
+                report.compilationTime().toMillis());
+        return report;
+    }
+
+    private void warmUpEndpoints() throws InterruptedException {
+        String baseUrl = "http://localhost:" + environment.getProperty("local.server.port", "8080") + "/api/demo";
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < endpointIterations; i++) {
+                String id = "warmup-" + i;
+                calls.add(executor.submit(() -> call(baseUrl + "/fast", HttpMethod.GET, null)));
+                calls.add(executor.submit(() -> call(baseUrl + "/slow", HttpMethod.GET, null)));
+                calls.add(executor.submit(() -> call(baseUrl + "/flaky", HttpMethod.GET, null)));
+                calls.add(executor.submit(() -> call(baseUrl + "/data", HttpMethod.POST, Map.of("name", id))));
+                calls.add(executor.submit(() -> call(baseUrl + "/data/" + id, HttpMethod.PUT, Map.of("name", id))));
+                calls.add(executor.submit(() -> call(baseUrl + "/data/" + id, HttpMethod.DELETE, null)));
+            }
+            for (Future<?> call : calls) {
+                try {
+                    call.get();
+                } catch (ExecutionException e) {
+                    logger.debug("Warm-up request failed", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private void call(String url, HttpMethod method, Object payload) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(WARMUP_HEADER, "true");
+            restTemplate.exchange(url, method, new HttpEntity<>(payload, headers), Map.class);
+        } catch (HttpStatusCodeException e) {
+            // Error statuses are part of the normal endpoint behavior
+        }
+    }
+
+    private void warmUpKernels() {
+        // Steady-load sizes for the kernels CpuLoadSimulator runs most, smaller ones for the rest
+        for (int i = 0; i < kernelIterations; i++) {
+            sorts.warmUp(30000);
+            kernels.findPrimes(80000);
+            kernels.multiplyMatrices(200);
+            kernels.performStringOperations(2000);
+            kernels.performComplexMath(100000);
+            kernels.calculateFibonacciRecursive(25);
+        }
+    }
+
+    private void registerMetrics(WarmupReport report) {
+        TimeGauge.builder("jvm.warmup.duration", report, TimeUnit.MILLISECONDS, r -> r.duration().toMillis())
+                .description("Wall-clock time of the JIT warm-up phase")
+                .register(registry);
+        TimeGauge.builder("jvm.warmup.compilation.time", report, TimeUnit.MILLISECONDS,
+                        r -> r.compilationTime().toMillis())
+                .description("Time the JIT compilers spent compiling during warm-up")
+                .register(registry);
+        Gauge.builder("jvm.warmup.compilations", report, WarmupReport::c1Compilations)
+                .description("Methods compiled during warm-up")
+                .tag("compiler", "c1")
+                .register(registry);
+        Gauge.builder("jvm.warmup.compilations", report, WarmupReport::c2Compilations)
+                .description("Methods compiled during warm-up")
+                .tag("compiler", "c2")
+                .register(registry);
+    }
+
+    /**
+     * Ends a warm-up that did not complete, so health is no longer held back by it
+     */
+    public void markFailed(Throwable cause) {
+        failure = cause.toString();
+        finished = true;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Whether a request was sent by the warm-up
+     */
+    public static boolean isWarmupRequest(HttpServletRequest request) {
+        return request.getHeader(WARMUP_HEADER) != null;
+    }
+
+    @Override
+    public Health health() {
+        if (!finished) {
+            return Health.outOfService().withDetail("warmup", "in progress").build();
+        }
+        Health.Builder health = Health.up();
+        if (failure != null) {
+            health.withDetail("warmup", "failed").withDetail("error", failure);
+        } else if (report != null) {
+            health.withDetail("durationMs", report.duration().toMillis())
+                    .withDetail("c1Compilations", report.c1Compilations())
+                    .withDetail("c2Compilations", report.c2Compilations())
+                    .withDetail("compilationTimeMs", report.compilationTime().toMillis());
+        }
+        return health.build();
+    }
+
+    /**
+     * Outcome of a warm-up run
+     */
+    public record WarmupReport(Duration duration, long c1Compilations, long c2Compilations,
+                               Duration compilationTime) {
+    }
+}
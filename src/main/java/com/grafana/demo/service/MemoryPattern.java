@@ -0,0 +1,21 @@
+package com.grafana.demo.service;
+
+/**
+ * Memory allocation patterns produced by {@link MemoryUsageSimulator}
+ */
+public enum MemoryPattern {
+    IDLE,
+    MASSIVE_SPIKE,
+    AGGRESSIVE_GROWTH,
+    COMPLEX_OBJECT_GRAPH,
+    FRAGMENTATION,
+    DATA_PROCESSING,
+    CLEANUP;
+
+    /**
+     * Lower-case name used as a metric tag value
+     */
+    public String tagValue() {
+        return name().toLowerCase();
+    }
+}
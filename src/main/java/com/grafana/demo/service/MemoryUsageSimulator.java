@@ -3,51 +3,105 @@ package com.grafana.demo.service;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
+import com.grafana.demo.pressure.MemoryPressureMonitor;
+import com.grafana.demo.pressure.PressureLevel;
+import com.grafana.demo.telemetry.event.MemoryPatternEvent;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 @Service
+@Lazy
 @ConditionalOnProperty(prefix = "test", name = "memory", havingValue = "run")
 public class MemoryUsageSimulator {
     private static final Logger logger = LoggerFactory.getLogger(MemoryUsageSimulator.class);
     private final Random random = new Random();
 
     // Collection to hold references for memory retention
-    private final List<Object> memoryHolder = Collections.synchronizedList(new ArrayList<>());
+    private final List<HeldObject> memoryHolder = Collections.synchronizedList(new ArrayList<>());
     // Secondary holders for different patterns
-    private final Map<String, Object> longLivedCache = new ConcurrentHashMap<>();
-    private final List<Object> volatileMemory = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, HeldObject> longLivedCache = new ConcurrentHashMap<>();
+    private final List<HeldObject> volatileMemory = Collections.synchronizedList(new ArrayList<>());
 
     // Configuration constants
     private static final int MAX_MEMORY_RETENTION_MB = 400; // Up to 400MB held at once
     private static final int LARGE_ALLOCATION_STEP_MB = 50; // 50MB steps for large allocations
+    private static final int INDEX_ENTRY_BYTES = 64; // Rough cost of a HashMap node plus boxed key
+
+    private static final MemoryPattern[] PATTERNS = {
+            MemoryPattern.MASSIVE_SPIKE,
+            MemoryPattern.AGGRESSIVE_GROWTH,
+            MemoryPattern.COMPLEX_OBJECT_GRAPH,
+            MemoryPattern.FRAGMENTATION,
+            MemoryPattern.DATA_PROCESSING,
+            MemoryPattern.CLEANUP // Occasionally clean up
+    };
+
+    private final SimulatorActivity activity;
+    private final HeldObjectInventory inventory;
+    // Builds large structures on multiple cores when memory.population=parallel, null otherwise
+    private final HeapPopulator populator;
+    private final MemoryPressureMonitor pressure;
+
+    public MemoryUsageSimulator(SimulatorActivity activity,
+                                HeldObjectInventory inventory,
+                                ObjectProvider<HeapPopulator> populator,
+                                MemoryPressureMonitor pressure) {
+        this.activity = activity;
+        this.inventory = inventory;
+        this.populator = populator.getIfAvailable();
+        this.pressure = pressure;
+    }
 
     @Scheduled(fixedRate = 12000) // Every 12 seconds
     public void simulateMemoryPatterns() {
-        int pattern = random.nextInt(6);
-
-        switch (pattern) {
-            case 0:
-                simulateMassiveSpike();
-                break;
-            case 1:
-                simulateAggressiveGrowth();
-                break;
-            case 2:
-                simulateComplexObjectGraph();
-                break;
-            case 3:
-                simulateMemoryFragmentation();
-                break;
-            case 4:
-                simulateDataProcessingHeap();
-                break;
-            case 5:
-                cleanupMostMemory(); // Occasionally clean up
-                break;
+        MemoryPattern pattern = PATTERNS[random.nextInt(PATTERNS.length)];
+        if (pattern != MemoryPattern.CLEANUP && pressure.isAtLeast(PressureLevel.ELEVATED)) {
+            // Every other pattern allocates; give memory back instead of adding to the pressure
+            logger.info("Memory pressure {}, running cleanup instead of {}", pressure.level(), pattern);
+            pattern = MemoryPattern.CLEANUP;
+        }
+
+        MemoryPatternEvent event = new MemoryPatternEvent();
+        event.begin();
+        activity.memoryPatternStarted(pattern);
+        int targetMB = 0;
+        try {
+            switch (pattern) {
+                case MASSIVE_SPIKE:
+                    targetMB = simulateMassiveSpike();
+                    break;
+                case AGGRESSIVE_GROWTH:
+                    targetMB = simulateAggressiveGrowth();
+                    break;
+                case COMPLEX_OBJECT_GRAPH:
+                    targetMB = simulateComplexObjectGraph();
+                    break;
+                case FRAGMENTATION:
+                    targetMB = simulateMemoryFragmentation();
+                    break;
+                case DATA_PROCESSING:
+                    targetMB = simulateDataProcessingHeap();
+                    break;
+                case CLEANUP:
+                    targetMB = cleanupMostMemory();
+                    break;
+                default:
+                    break;
+            }
+        } finally {
+            activity.memoryPatternFinished();
+            event.end();
+            if (event.shouldCommit()) {
+                event.pattern = pattern.name();
+                event.targetBytes = targetMB * 1024L * 1024L;
+                event.commit();
+            }
         }
 
         // Log current memory state after each operation
@@ -57,22 +111,30 @@ public class MemoryUsageSimulator {
     /**
      * Creates a massive, short-lived spike in memory usage
      */
-    private void simulateMassiveSpike() {
+    private int simulateMassiveSpike() {
         int spikeSizeMB = 100 + random.nextInt(200); // 100-300 MB spike
         logger.info("🚀 Generating MASSIVE memory spike of {} MB", spikeSizeMB);
 
+        // Create large allocation quickly
+        List<HeldObject> temporaryList = new ArrayList<>();
         try {
-            // Create large allocation quickly
-            List<byte[]> temporaryList = new ArrayList<>();
-
             // Allocate in bigger chunks for faster allocation
             for (int i = 0; i < spikeSizeMB; i += 10) {
+                if (pressure.isAtLeast(PressureLevel.CRITICAL)) {
+                    logger.info("Memory pressure critical, cutting spike short at {} MB", i);
+                    break;
+                }
                 int chunkSize = Math.min(10, spikeSizeMB - i);
-                temporaryList.add(new byte[chunkSize * 1024 * 1024]); // 10MB chunks
+                byte[] chunk = new byte[chunkSize * 1024 * 1024]; // 10MB chunks
+                temporaryList.add(inventory.hold(HeldKind.SPIKE_CHUNK, chunk, chunk.length));
 
+                if (populator != null) {
+                    // Parallel population fills every chunk and does not pace the spike
+                    populator.fillRandom(chunk);
+                    continue;
+                }
                 if (random.nextInt(3) == 0) { // 1/3 chance to fill with data
-                    byte[] lastArray = temporaryList.get(temporaryList.size() - 1);
-                    random.nextBytes(lastArray); // Fill with random data
+                    fillRandom(chunk); // Fill with random data
                 }
 
                 // Very brief pause
@@ -82,19 +144,22 @@ public class MemoryUsageSimulator {
             logger.info("Memory spike peak reached at {} MB, holding briefly...", spikeSizeMB);
             Thread.sleep(2000 + random.nextInt(3000)); // Hold for 2-5 seconds
 
-            logger.info("Releasing spike memory");
-            temporaryList.clear();
-
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             logger.error("Memory spike simulation interrupted", e);
+        } finally {
+            logger.info("Releasing spike memory");
+            inventory.releaseAll(temporaryList);
+            temporaryList.clear();
         }
+
+        return spikeSizeMB;
     }
 
     /**
      * Simulates an aggressive, sustained memory growth pattern
      */
-    private void simulateAggressiveGrowth() {
+    private int simulateAggressiveGrowth() {
         int targetGrowthMB = 50 + random.nextInt(150); // 50-200 MB growth
         logger.info("📈 Simulating aggressive memory growth of {} MB", targetGrowthMB);
 
@@ -109,21 +174,32 @@ public class MemoryUsageSimulator {
             try {
                 // Grow in large chunks
                 for (int i = 0; i < growByMB; i += LARGE_ALLOCATION_STEP_MB) {
+                    if (pressure.isAtLeast(PressureLevel.CRITICAL)) {
+                        logger.info("Memory pressure critical, stopping growth after {} MB", i);
+                        break;
+                    }
                     int chunkSize = Math.min(LARGE_ALLOCATION_STEP_MB, growByMB - i);
 
                     // Create varied object types
                     if (random.nextBoolean()) {
                         // Arrays
                         byte[] largeArray = new byte[chunkSize * 1024 * 1024];
-                        random.nextBytes(largeArray); // Fill with data
-                        memoryHolder.add(largeArray);
+                        fillRandom(largeArray); // Fill with data
+                        memoryHolder.add(inventory.hold(HeldKind.BYTE_ARRAY, largeArray, largeArray.length));
                     } else {
                         // String buffers (uses even more memory due to character encoding)
-                        StringBuilder sb = new StringBuilder(chunkSize * 256 * 1024); // ~2x memory usage
-                        for (int j = 0; j < chunkSize * 256 * 1024; j++) {
-                            sb.append((char)(random.nextInt(26) + 'a'));
+                        String text;
+                        if (populator != null) {
+                            text = populator.randomLetters(chunkSize * 256 * 1024);
+                        } else {
+                            StringBuilder sb = new StringBuilder(chunkSize * 256 * 1024); // ~2x memory usage
+                            for (int j = 0; j < chunkSize * 256 * 1024; j++) {
+                                sb.append((char)(random.nextInt(26) + 'a'));
+                            }
+                            text = sb.toString();
                         }
-                        memoryHolder.add(sb.toString());
+                        // Latin-1 only, so compact strings use one byte per character
+                        memoryHolder.add(inventory.hold(HeldKind.STRING, text, text.length()));
                     }
 
                     Thread.sleep(100); // Brief pause between allocations
@@ -140,12 +216,14 @@ public class MemoryUsageSimulator {
             logger.info("Memory retention limit reached ({}MB), skipping growth",
                     MAX_MEMORY_RETENTION_MB);
         }
+
+        return targetGrowthMB;
     }
 
     /**
      * Simulates a complex object graph with many interconnected references
      */
-    private void simulateComplexObjectGraph() {
+    private int simulateComplexObjectGraph() {
         int graphSizeMB = 40 + random.nextInt(60); // 40-100 MB object graph
         logger.info("🌐 Creating complex object graph of ~{} MB", graphSizeMB);
 
@@ -156,10 +234,24 @@ public class MemoryUsageSimulator {
             // Create object graph with approximately graphSizeMB memory footprint
             int bytesPerRootObject = (graphSizeMB * 1024 * 1024) / rootObjects;
 
+            if (populator != null) {
+                // All roots at once, without pacing
+                long start = System.nanoTime();
+                List<Map<String, Object>> roots = populator.objectGraphs(rootObjects, bytesPerRootObject, 5);
+                for (int i = 0; i < roots.size(); i++) {
+                    longLivedCache.put("graph-root-" + System.currentTimeMillis() + "-" + i,
+                            inventory.hold(HeldKind.OBJECT_GRAPH, roots.get(i), bytesPerRootObject));
+                }
+                logger.info("Complex object graph created in parallel in {} ms, estimated size: {} MB",
+                        (System.nanoTime() - start) / 1_000_000, graphSizeMB);
+                return graphSizeMB;
+            }
+
             for (int i = 0; i < rootObjects; i++) {
                 // Create a tree structure
                 Map<String, Object> rootMap = createObjectGraphNode(bytesPerRootObject, 0, 5);
-                longLivedCache.put("graph-root-" + System.currentTimeMillis() + "-" + i, rootMap);
+                longLivedCache.put("graph-root-" + System.currentTimeMillis() + "-" + i,
+                        inventory.hold(HeldKind.OBJECT_GRAPH, rootMap, bytesPerRootObject));
 
                 Thread.sleep(50); // Brief pause
             }
@@ -170,6 +262,8 @@ public class MemoryUsageSimulator {
             Thread.currentThread().interrupt();
             logger.error("Object graph creation interrupted", e);
         }
+
+        return graphSizeMB;
     }
 
     /**
@@ -215,7 +309,7 @@ public class MemoryUsageSimulator {
     /**
      * Simulates memory fragmentation with many small allocations
      */
-    private void simulateMemoryFragmentation() {
+    private int simulateMemoryFragmentation() {
         int totalFragmentationMB = 30 + random.nextInt(70); // 30-100 MB
         logger.info("🧩 Simulating memory fragmentation across {} MB", totalFragmentationMB);
 
@@ -246,7 +340,9 @@ public class MemoryUsageSimulator {
             }
 
             // Keep references in volatile memory
-            volatileMemory.addAll(fragments);
+            for (byte[] fragment : fragments) {
+                volatileMemory.add(inventory.hold(HeldKind.FRAGMENT, fragment, fragment.length));
+            }
             logger.info("Memory fragmentation complete: {} fragments created", fragments.size());
 
             // Hold for a short period then discard half
@@ -258,7 +354,7 @@ public class MemoryUsageSimulator {
             // Discard every other fragment (worse fragmentation than clearing a contiguous block)
             for (int i = 0; i < toDiscard; i++) {
                 if (i < volatileMemory.size()) {
-                    volatileMemory.remove(i);
+                    inventory.release(volatileMemory.remove(i));
                 }
             }
 
@@ -266,12 +362,14 @@ public class MemoryUsageSimulator {
             Thread.currentThread().interrupt();
             logger.error("Memory fragmentation simulation interrupted", e);
         }
+
+        return totalFragmentationMB;
     }
 
     /**
      * Simulates memory patterns typical of data processing applications
      */
-    private void simulateDataProcessingHeap() {
+    private int simulateDataProcessingHeap() {
         int batchSizeMB = 80 + random.nextInt(120); // 80-200 MB
         logger.info("🔄 Simulating data processing memory heap of {} MB", batchSizeMB);
 
@@ -285,12 +383,22 @@ public class MemoryUsageSimulator {
             logger.info("Creating {} data tables with ~{}MB each", numTables, mbPerTable);
 
             List<List<Map<String, Object>>> tables = new ArrayList<>();
+            List<HeldObject> heldTables = new ArrayList<>();
+            long start = System.nanoTime();
 
             for (int t = 0; t < numTables; t++) {
                 // Create a table with rows and columns
                 int rowSize = 1024 + random.nextInt(2048); // 1-3KB per row
                 int numRows = (mbPerTable * 1024 * 1024) / rowSize;
 
+                if (populator != null) {
+                    List<Map<String, Object>> table = populator.table(numRows);
+                    tables.add(table);
+                    heldTables.add(inventory.hold(HeldKind.TABLE, table, (long) numRows * rowSize));
+                    logger.info("Created table {} with {} rows in parallel", t, numRows);
+                    continue;
+                }
+
                 List<Map<String, Object>> table = new ArrayList<>(numRows);
 
                 // Generate row data
@@ -325,11 +433,13 @@ public class MemoryUsageSimulator {
                 }
 
                 tables.add(table);
+                heldTables.add(inventory.hold(HeldKind.TABLE, table, (long) numRows * rowSize));
                 logger.info("Created table {} with {} rows", t, numRows);
             }
 
             // Add to memory holders
-            memoryHolder.addAll(tables);
+            memoryHolder.addAll(heldTables);
+            logger.info("Data tables populated in {} ms", (System.nanoTime() - start) / 1_000_000);
 
             // Simulate processing - create indexes and aggregations
             logger.info("Creating indexes and aggregations on data");
@@ -351,8 +461,8 @@ public class MemoryUsageSimulator {
                 }
 
                 // Add indexes to memory
-                memoryHolder.add(idIndex);
-                memoryHolder.add(timeIndex);
+                memoryHolder.add(inventory.hold(HeldKind.INDEX, idIndex, (long) idIndex.size() * INDEX_ENTRY_BYTES));
+                memoryHolder.add(inventory.hold(HeldKind.INDEX, timeIndex, (long) table.size() * INDEX_ENTRY_BYTES));
             }
 
             logger.info("Data processing heap created and indexed");
@@ -364,12 +474,14 @@ public class MemoryUsageSimulator {
             Thread.currentThread().interrupt();
             logger.error("Data processing simulation interrupted", e);
         }
+
+        return batchSizeMB;
     }
 
     /**
      * Cleans up most memory to prevent actual OutOfMemoryErrors
      */
-    private void cleanupMostMemory() {
+    private int cleanupMostMemory() {
         int retainedMB = estimateCurrentMemoryUsageMB();
         logger.info("🧹 Performing extensive memory cleanup. Current usage: ~{} MB", retainedMB);
 
@@ -384,29 +496,44 @@ public class MemoryUsageSimulator {
         // Clear from main holder
         int toClear = (int)(memoryHolder.size() * clearPercentage);
         for (int i = 0; i < toClear && !memoryHolder.isEmpty(); i++) {
-            memoryHolder.remove(0);
+            inventory.release(memoryHolder.remove(0));
         }
 
         // Clear from cache
         int cacheToClear = (int)(longLivedCache.size() * clearPercentage);
-        Iterator<String> keyIterator = longLivedCache.keySet().iterator();
+        Iterator<HeldObject> cacheIterator = longLivedCache.values().iterator();
         int cacheCleared = 0;
-        while (keyIterator.hasNext() && cacheCleared < cacheToClear) {
-            keyIterator.next();
-            keyIterator.remove();
+        while (cacheIterator.hasNext() && cacheCleared < cacheToClear) {
+            inventory.release(cacheIterator.next());
+            cacheIterator.remove();
             cacheCleared++;
         }
 
         // Clear from volatile memory
-        volatileMemory.clear();
+        synchronized (volatileMemory) {
+            inventory.releaseAll(volatileMemory);
+            volatileMemory.clear();
+        }
 
         logger.info("Memory cleanup complete. Cleared {} from main holder, {} from cache, and {} from volatile",
                 memoryHolderSize - memoryHolder.size(),
                 longLivedCacheSize - longLivedCache.size(),
                 volatileMemorySize);
 
-        // Suggest garbage collection
-        System.gc();
+        // No System.gc(): a forced full collection on top of high occupancy is what starts GC thrashing.
+        // The released memory is reclaimed by the next regular collection.
+        return retainedMB;
+    }
+
+    /**
+     * Fills an array with random bytes, on all population threads when parallel population is enabled
+     */
+    private void fillRandom(byte[] array) {
+        if (populator != null) {
+            populator.fillRandom(array);
+        } else {
+            random.nextBytes(array);
+        }
     }
 
     /**
@@ -425,8 +552,9 @@ public class MemoryUsageSimulator {
                 allocatedMemory / (1024 * 1024),
                 maxMemory / (1024 * 1024));
 
-        logger.info("Object counts - Main: {}, Cache: {}, Volatile: {}",
-                memoryHolder.size(), longLivedCache.size(), volatileMemory.size());
+        logger.info("Object counts - Main: {}, Cache: {}, Volatile: {} (~{}MB held)",
+                memoryHolder.size(), longLivedCache.size(), volatileMemory.size(),
+                inventory.totalBytes() / (1024 * 1024));
     }
 
     /**
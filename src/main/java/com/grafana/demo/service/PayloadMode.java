@@ -0,0 +1,22 @@
+package com.grafana.demo.service;
+
+/**
+ * How JSON request payloads for the {@code /data} endpoints are produced and consumed
+ */
+public enum PayloadMode {
+    /** Payload built as a {@code Map} and bound to a {@code Map} on the server */
+    MAP,
+    /** Payload written with a {@code JsonGenerator} and scanned with a {@code JsonParser}, no intermediate objects */
+    STREAMING;
+
+    public static PayloadMode from(String value) {
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+
+    /**
+     * Lower-case name used as a metric tag value
+     */
+    public String tagValue() {
+        return name().toLowerCase();
+    }
+}
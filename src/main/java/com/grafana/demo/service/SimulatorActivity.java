@@ -0,0 +1,64 @@
+package com.grafana.demo.service;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks which simulator pattern is currently running, so that telemetry
+ * collected elsewhere (JFR events, GC notifications) can be attributed to it.
+ * <p>
+ * Recent pattern changes are kept with their timestamps, because telemetry
+ * such as JFR events arrives after the fact and has to be attributed to the
+ * pattern that was active when it happened, not when it is processed.
+ */
+@Component
+public class SimulatorActivity {
+
+    // Patterns last seconds, so this covers far more than the JFR stream's delivery delay
+    private static final int HISTORY_SIZE = 32;
+
+    /**
+     * Pattern that became active at {@code since}
+     */
+    private record Transition(Instant since, MemoryPattern pattern) {
+    }
+
+    // Oldest first; replaced on every (rare) change so readers never lock
+    private volatile Transition[] history = { new Transition(Instant.MIN, MemoryPattern.IDLE) };
+
+    public MemoryPattern getMemoryPattern() {
+        Transition[] transitions = history;
+        return transitions[transitions.length - 1].pattern();
+    }
+
+    /**
+     * Pattern that was active at the given time, {@code IDLE} if it is older than the retained history
+     */
+    public MemoryPattern getMemoryPatternAt(Instant time) {
+        Transition[] transitions = history;
+        for (int i = transitions.length - 1; i >= 0; i--) {
+            if (!transitions[i].since().isAfter(time)) {
+                return transitions[i].pattern();
+            }
+        }
+        return MemoryPattern.IDLE;
+    }
+
+    public void memoryPatternStarted(MemoryPattern pattern) {
+        record(pattern);
+    }
+
+    public void memoryPatternFinished() {
+        record(MemoryPattern.IDLE);
+    }
+
+    private synchronized void record(MemoryPattern pattern) {
+        Transition[] transitions = history;
+        int keep = Math.min(transitions.length, HISTORY_SIZE - 1);
+        Transition[] updated = Arrays.copyOfRange(transitions, transitions.length - keep, transitions.length + 1);
+        updated[keep] = new Transition(Instant.now(), pattern);
+        history = updated;
+    }
+}
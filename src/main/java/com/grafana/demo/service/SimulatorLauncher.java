@@ -0,0 +1,72 @@
+package com.grafana.demo.service;
+
+import com.grafana.demo.alerting.AlertRuleValidator;
+import com.grafana.demo.retention.RetentionEngine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Starts the simulators once the application is ready to serve requests and
+ * the JIT warm-up has finished.
+ * <p>
+ * The simulator beans are {@code @Lazy}, so neither they nor their thread
+ * pools exist during context startup. Resolving them here creates the beans,
+ * which registers their {@code @Scheduled} methods with the already running
+ * scheduler.
+ */
+@Component
+public class SimulatorLauncher {
+    private static final Logger logger = LoggerFactory.getLogger(SimulatorLauncher.class);
+
+    private final JitWarmup jitWarmup;
+    private final ObjectProvider<CpuLoadSimulator> cpuLoadSimulator;
+    private final ObjectProvider<MemoryUsageSimulator> memoryUsageSimulator;
+    private final ObjectProvider<HttpTrafficSimulator> httpTrafficSimulator;
+    private final ObjectProvider<RetentionEngine> retentionEngine;
+    private final AlertRuleValidator alertRuleValidator;
+
+    public SimulatorLauncher(JitWarmup jitWarmup,
+                             ObjectProvider<CpuLoadSimulator> cpuLoadSimulator,
+                             ObjectProvider<MemoryUsageSimulator> memoryUsageSimulator,
+                             ObjectProvider<HttpTrafficSimulator> httpTrafficSimulator,
+                             ObjectProvider<RetentionEngine> retentionEngine,
+                             AlertRuleValidator alertRuleValidator) {
+        this.jitWarmup = jitWarmup;
+        this.cpuLoadSimulator = cpuLoadSimulator;
+        this.memoryUsageSimulator = memoryUsageSimulator;
+        this.httpTrafficSimulator = httpTrafficSimulator;
+        this.retentionEngine = retentionEngine;
+        this.alertRuleValidator = alertRuleValidator;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        // The warm-up calls our own endpoints, so it must not block the thread that publishes the event
+        Thread launcher = new Thread(() -> {
+            try {
+                jitWarmup.run();
+            } catch (RuntimeException e) {
+                logger.error("JIT warm-up failed, starting the simulators without it", e);
+                jitWarmup.markFailed(e);
+            } finally {
+                launchSimulators();
+            }
+        }, "simulator-launcher");
+        launcher.setDaemon(true);
+        launcher.start();
+    }
+
+    private void launchSimulators() {
+        cpuLoadSimulator.ifAvailable(simulator -> logger.info("CPU load simulator started"));
+        memoryUsageSimulator.ifAvailable(simulator -> logger.info("Memory usage simulator started"));
+        httpTrafficSimulator.ifAvailable(simulator -> logger.info("HTTP traffic simulator started"));
+        retentionEngine.ifAvailable(engine -> logger.info("Retention engine started"));
+        // Measured from here, so time-to-fire covers the simulator load only
+        alertRuleValidator.autoStart();
+    }
+}
@@ -0,0 +1,136 @@
+package com.grafana.demo.service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes and reads random demo payloads with Jackson's streaming API, so
+ * neither side materializes a map or boxed values no matter how large the
+ * payload is.
+ * <p>
+ * Payloads have the same shape as the map-based ones, except that the random
+ * values go into a {@code fields} array instead of numbered fields:
+ * {@code {"timestamp":..,"name":..,"value":..,"fields":[..]}}.
+ */
+@Component
+public class StreamingPayload {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int TEXT_LENGTH = 32;
+
+    private final JsonFactory jsonFactory;
+
+    public StreamingPayload(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Writes a random payload of at least {@code targetBytes} bytes and returns
+     * the exact number of bytes written. The stream is flushed but not closed.
+     */
+    public long write(OutputStream out, int targetBytes) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] text = new char[TEXT_LENGTH];
+        CountingOutputStream counting = new CountingOutputStream(out);
+
+        try (JsonGenerator generator = jsonFactory.createGenerator(counting)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            generator.writeStartObject();
+            generator.writeNumberField("timestamp", System.currentTimeMillis());
+            generator.writeFieldName("name");
+            generator.writeString(randomHex(random, text, 8), 0, 8);
+            generator.writeNumberField("value", random.nextDouble() * 1000);
+
+            generator.writeArrayFieldStart("fields");
+            // Buffered output is counted as well, so the check does not force a flush
+            while (counting.count + generator.getOutputBuffered() < targetBytes) {
+                switch (random.nextInt(4)) {
+                    case 0:
+                        generator.writeNumber(random.nextInt(1000));
+                        break;
+                    case 1:
+                        generator.writeNumber(random.nextDouble() * 1000);
+                        break;
+                    case 2:
+                        generator.writeString(randomHex(random, text, TEXT_LENGTH), 0, TEXT_LENGTH);
+                        break;
+                    default:
+                        generator.writeBoolean(random.nextBoolean());
+                }
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return counting.count;
+    }
+
+    private static char[] randomHex(ThreadLocalRandom random, char[] text, int length) {
+        for (int i = 0; i < length; i++) {
+            text[i] = HEX[random.nextInt(HEX.length)];
+        }
+        return text;
+    }
+
+    /**
+     * Validates a payload token by token without binding it and returns the
+     * number of scalar values and bytes it contained
+     *
+     * @throws JsonParseException if the body is not a well-formed JSON object
+     */
+    public ScanResult scan(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+
+            int values = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                // Scalar text is decoded lazily, so skipped values are never turned into Strings
+                if (token.isScalarValue()) {
+                    values++;
+                }
+            }
+            return new ScanResult(values, parser.currentLocation().getByteOffset());
+        }
+    }
+
+    /**
+     * Outcome of scanning a payload
+     */
+    public record ScanResult(int values, long bytes) {
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.grafana.demo.sort;
+
+import java.util.SplittableRandom;
+
+/**
+ * Shapes of the pre-generated sort inputs
+ */
+public enum InputDistribution {
+    /** Uniformly random values over the whole range */
+    RANDOM,
+    /** Ascending values with about 1% of the elements swapped out of place */
+    NEARLY_SORTED,
+    /** Values drawn from a small set of 64 distinct keys */
+    DUPLICATES;
+
+    private static final int DISTINCT_KEYS = 64;
+
+    public static InputDistribution from(String value) {
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+
+    /**
+     * Lower-case name used as a metric tag value
+     */
+    public String tagValue() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * Generates {@code size} values of this distribution
+     */
+    long[] generate(int size, SplittableRandom random) {
+        long[] values = new long[size];
+        switch (this) {
+            case RANDOM -> {
+                for (int i = 0; i < size; i++) {
+                    values[i] = random.nextLong();
+                }
+            }
+            case NEARLY_SORTED -> {
+                long step = Long.MAX_VALUE / Math.max(1, size) * 2;
+                for (int i = 0; i < size; i++) {
+                    values[i] = Long.MIN_VALUE + i * step;
+                }
+                for (int swaps = size / 100; swaps > 0; swaps--) {
+                    int a = random.nextInt(size);
+                    int b = random.nextInt(size);
+                    long tmp = values[a];
+                    values[a] = values[b];
+                    values[b] = tmp;
+                }
+            }
+            case DUPLICATES -> {
+                long[] keys = random.longs(DISTINCT_KEYS).toArray();
+                for (int i = 0; i < size; i++) {
+                    values[i] = keys[random.nextInt(DISTINCT_KEYS)];
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,137 @@
+package com.grafana.demo.sort;
+
+import java.nio.LongBuffer;
+
+/**
+ * Least-significant-digit radix sorts on primitive keys, one byte per pass.
+ * <p>
+ * Every pass is a stable counting sort from one buffer into the other. Passes
+ * in which all keys share the same digit are skipped, which makes inputs with
+ * few distinct values or a narrow range noticeably cheaper. The top digit has
+ * its sign bit flipped so negative values sort before positive ones.
+ */
+final class RadixSort {
+    private static final int RADIX = 256;
+
+    private RadixSort() {
+    }
+
+    /**
+     * Sorts {@code values} using {@code scratch}, which must be at least as long
+     */
+    static void sort(int[] values, int[] scratch) {
+        int n = values.length;
+        int[][] counts = new int[Integer.BYTES][RADIX];
+        for (int i = 0; i < n; i++) {
+            int key = values[i] ^ Integer.MIN_VALUE;
+            for (int digit = 0; digit < Integer.BYTES; digit++) {
+                counts[digit][(key >>> (digit * 8)) & 0xFF]++;
+            }
+        }
+
+        int[] src = values;
+        int[] dst = scratch;
+        for (int digit = 0; digit < Integer.BYTES; digit++) {
+            int[] offsets = counts[digit];
+            if (!toOffsets(offsets, n)) {
+                continue;
+            }
+            int shift = digit * 8;
+            for (int i = 0; i < n; i++) {
+                int value = src[i];
+                dst[offsets[((value ^ Integer.MIN_VALUE) >>> shift) & 0xFF]++] = value;
+            }
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+        if (src != values) {
+            System.arraycopy(src, 0, values, 0, n);
+        }
+    }
+
+    /**
+     * Sorts {@code values} using {@code scratch}, which must be at least as long
+     */
+    static void sort(long[] values, long[] scratch) {
+        int n = values.length;
+        int[][] counts = new int[Long.BYTES][RADIX];
+        for (int i = 0; i < n; i++) {
+            long key = values[i] ^ Long.MIN_VALUE;
+            for (int digit = 0; digit < Long.BYTES; digit++) {
+                counts[digit][(int) (key >>> (digit * 8)) & 0xFF]++;
+            }
+        }
+
+        long[] src = values;
+        long[] dst = scratch;
+        for (int digit = 0; digit < Long.BYTES; digit++) {
+            int[] offsets = counts[digit];
+            if (!toOffsets(offsets, n)) {
+                continue;
+            }
+            int shift = digit * 8;
+            for (int i = 0; i < n; i++) {
+                long value = src[i];
+                dst[offsets[(int) ((value ^ Long.MIN_VALUE) >>> shift) & 0xFF]++] = value;
+            }
+            long[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+        if (src != values) {
+            System.arraycopy(src, 0, values, 0, n);
+        }
+    }
+
+    /**
+     * Sorts the first {@code n} values of a (typically direct) buffer using
+     * {@code scratch}, with absolute gets and puts only
+     */
+    static void sort(LongBuffer values, LongBuffer scratch, int n) {
+        int[][] counts = new int[Long.BYTES][RADIX];
+        for (int i = 0; i < n; i++) {
+            long key = values.get(i) ^ Long.MIN_VALUE;
+            for (int digit = 0; digit < Long.BYTES; digit++) {
+                counts[digit][(int) (key >>> (digit * 8)) & 0xFF]++;
+            }
+        }
+
+        LongBuffer src = values;
+        LongBuffer dst = scratch;
+        for (int digit = 0; digit < Long.BYTES; digit++) {
+            int[] offsets = counts[digit];
+            if (!toOffsets(offsets, n)) {
+                continue;
+            }
+            int shift = digit * 8;
+            for (int i = 0; i < n; i++) {
+                long value = src.get(i);
+                dst.put(offsets[(int) ((value ^ Long.MIN_VALUE) >>> shift) & 0xFF]++, value);
+            }
+            LongBuffer swap = src;
+            src = dst;
+            dst = swap;
+        }
+        if (src != values) {
+            values.put(0, src, 0, n);
+        }
+    }
+
+    /**
+     * Turns digit counts into starting offsets in place. Returns {@code false}
+     * if every key has the same digit, i.e. the pass would not move anything.
+     */
+    private static boolean toOffsets(int[] counts, int n) {
+        int offset = 0;
+        for (int d = 0; d < RADIX; d++) {
+            int count = counts[d];
+            if (count == n) {
+                return false;
+            }
+            counts[d] = offset;
+            offset += count;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,28 @@
+package com.grafana.demo.sort;
+
+/**
+ * Sorting algorithms available to the sort workload
+ */
+public enum SortAlgorithm {
+    /** Single-threaded dual-pivot quicksort on {@code int[]} ({@code Arrays.sort}) */
+    JDK,
+    /** Parallel merge sort on {@code int[]} in the common fork/join pool ({@code Arrays.parallelSort}) */
+    PARALLEL,
+    /** LSD radix sort on {@code int[]} */
+    RADIX_INT,
+    /** LSD radix sort on {@code long[]} */
+    RADIX_LONG,
+    /** LSD radix sort on {@code long} values held in direct (off-heap) memory */
+    OFF_HEAP;
+
+    public static SortAlgorithm from(String value) {
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+
+    /**
+     * Lower-case name used as a metric tag value
+     */
+    public String tagValue() {
+        return name().toLowerCase();
+    }
+}
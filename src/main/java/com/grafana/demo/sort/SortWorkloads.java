@@ -0,0 +1,204 @@
+package com.grafana.demo.sort;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sorting workload family for the CPU simulator.
+ * <p>
+ * Inputs are generated once per size and {@link InputDistribution} and reused,
+ * so every run measures the sort alone: each run copies the input into a
+ * working buffer, allocates any scratch space, and only then starts the clock.
+ * Successive runs rotate through the configured algorithms and distributions.
+ * The default is the JDK's single-threaded sort: {@link SortAlgorithm#PARALLEL}
+ * runs on the common fork-join pool, outside the CPU simulator's core budget
+ * and memory pressure scaling.
+ */
+@Component
+public class SortWorkloads {
+    private static final Logger logger = LoggerFactory.getLogger(SortWorkloads.class);
+
+    private final List<SortAlgorithm> algorithms;
+    private final List<InputDistribution> distributions;
+    private final long seed;
+
+    private final Map<InputKey, SortInput> inputs = new ConcurrentHashMap<>();
+    private final ThreadLocal<LongBuffer[]> offHeapBuffers = new ThreadLocal<>();
+    private final AtomicLong runs = new AtomicLong();
+    private final Map<SortAlgorithm, Map<InputDistribution, SortStats>> stats = new EnumMap<>(SortAlgorithm.class);
+
+    public SortWorkloads(MeterRegistry registry,
+                         @Value("${sort.algorithms:jdk}") List<String> algorithms,
+                         @Value("${sort.distributions:random,nearly-sorted,duplicates}") List<String> distributions,
+                         @Value("${sort.seed:42}") long seed) {
+        this.algorithms = algorithms.stream().map(SortAlgorithm::from).toList();
+        this.distributions = distributions.stream().map(InputDistribution::from).toList();
+        this.seed = seed;
+
+        for (SortAlgorithm algorithm : SortAlgorithm.values()) {
+            Map<InputDistribution, SortStats> byDistribution = new EnumMap<>(InputDistribution.class);
+            for (InputDistribution distribution : InputDistribution.values()) {
+                byDistribution.put(distribution, new SortStats(registry, algorithm, distribution));
+            }
+            stats.put(algorithm, byDistribution);
+        }
+        logger.info("Sort workload: algorithms={}, distributions={}", this.algorithms, this.distributions);
+    }
+
+    /**
+     * Sorts {@code size} elements with the next configured algorithm and distribution
+     */
+    public void sort(int size) {
+        long run = runs.getAndIncrement();
+        SortAlgorithm algorithm = algorithms.get((int) (run % algorithms.size()));
+        InputDistribution distribution = distributions.get((int) (run / algorithms.size() % distributions.size()));
+        sort(algorithm, distribution, size);
+    }
+
+    /**
+     * Sorts a copy of the pre-generated input of the given size and distribution
+     */
+    public void sort(SortAlgorithm algorithm, InputDistribution distribution, int size) {
+        SortInput input = inputs.computeIfAbsent(new InputKey(distribution, size), this::generate);
+
+        Runnable sort = prepare(algorithm, input, size);
+
+        long start = System.nanoTime();
+        sort.run();
+        stats.get(algorithm).get(distribution).record(size, System.nanoTime() - start);
+    }
+
+    /**
+     * Runs every configured algorithm on every configured distribution once,
+     * without recording metrics or advancing the rotation
+     */
+    public void warmUp(int size) {
+        for (SortAlgorithm algorithm : algorithms) {
+            for (InputDistribution distribution : distributions) {
+                SortInput input = inputs.computeIfAbsent(new InputKey(distribution, size), this::generate);
+                prepare(algorithm, input, size).run();
+            }
+        }
+    }
+
+    /**
+     * Copies the input into working buffers and returns the sort of them
+     */
+    private Runnable prepare(SortAlgorithm algorithm, SortInput input, int size) {
+        return switch (algorithm) {
+            case JDK -> {
+                int[] values = Arrays.copyOf(input.ints(), size);
+                yield () -> Arrays.sort(values);
+            }
+            case PARALLEL -> {
+                int[] values = Arrays.copyOf(input.ints(), size);
+                yield () -> Arrays.parallelSort(values);
+            }
+            case RADIX_INT -> {
+                int[] values = Arrays.copyOf(input.ints(), size);
+                int[] scratch = new int[size];
+                yield () -> RadixSort.sort(values, scratch);
+            }
+            case RADIX_LONG -> {
+                long[] values = Arrays.copyOf(input.longs(), size);
+                long[] scratch = new long[size];
+                yield () -> RadixSort.sort(values, scratch);
+            }
+            case OFF_HEAP -> {
+                LongBuffer[] buffers = offHeapBuffers(size);
+                buffers[0].put(0, input.offHeap(), 0, size);
+                yield () -> RadixSort.sort(buffers[0], buffers[1], size);
+            }
+        };
+    }
+
+    private SortInput generate(InputKey key) {
+        // Seeded per distribution, so inputs are identical across runs and comparable between them
+        long[] longs = key.distribution().generate(key.size(), new SplittableRandom(seed ^ key.distribution().ordinal()));
+        int[] ints = new int[longs.length];
+        for (int i = 0; i < longs.length; i++) {
+            // The high half keeps the ordering of the long values
+            ints[i] = (int) (longs[i] >> 32);
+        }
+        LongBuffer offHeap = direct(longs.length);
+        offHeap.put(0, longs);
+
+        logger.debug("Generated {} sort input of {} elements", key.distribution().tagValue(), key.size());
+        return new SortInput(ints, longs, offHeap);
+    }
+
+    /**
+     * Returns this thread's working and scratch buffers, grown to at least {@code size} elements
+     */
+    private LongBuffer[] offHeapBuffers(int size) {
+        LongBuffer[] buffers = offHeapBuffers.get();
+        if (buffers == null || buffers[0].capacity() < size) {
+            buffers = new LongBuffer[] { direct(size), direct(size) };
+            offHeapBuffers.set(buffers);
+        }
+        return buffers;
+    }
+
+    private static LongBuffer direct(int elements) {
+        return ByteBuffer.allocateDirect(elements * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    private record InputKey(InputDistribution distribution, int size) {
+    }
+
+    /**
+     * One pre-generated input in every representation the algorithms work on.
+     * Never written to after creation, so it is shared by all threads.
+     */
+    private record SortInput(int[] ints, long[] longs, LongBuffer offHeap) {
+    }
+
+    private static final class SortStats {
+        private final Counter elements;
+        private final Timer duration;
+        private volatile double throughput;
+
+        SortStats(MeterRegistry registry, SortAlgorithm algorithm, InputDistribution distribution) {
+            elements = Counter.builder("sort.elements")
+                    .description("Elements sorted by the sort workload")
+                    .tag("algorithm", algorithm.tagValue())
+                    .tag("distribution", distribution.tagValue())
+                    .register(registry);
+            duration = Timer.builder("sort.duration")
+                    .description("Time spent sorting, excluding input generation and copying")
+                    .tag("algorithm", algorithm.tagValue())
+                    .tag("distribution", distribution.tagValue())
+                    .register(registry);
+            Gauge.builder("sort.throughput", this, s -> s.throughput)
+                    .description("Elements per second sorted by the most recent run")
+                    .tag("algorithm", algorithm.tagValue())
+                    .tag("distribution", distribution.tagValue())
+                    .register(registry);
+        }
+
+        void record(int size, long nanos) {
+            elements.increment(size);
+            duration.record(nanos, TimeUnit.NANOSECONDS);
+            throughput = nanos > 0 ? size * 1e9 / nanos : 0;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.grafana.demo.telemetry;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Estimates how many new client connections the server accepts, per protocol.
+ * <p>
+ * Tomcat does not expose an accept counter, so a request arriving from a
+ * remote address and port that has not been seen within the idle timeout is
+ * counted as a new connection. Open connections themselves are reported by
+ * Tomcat ({@code tomcat.connections.current}).
+ */
+@Component
+public class ConnectionTrackingFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+    private final long idleTimeoutMs;
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+    private final Map<String, Counter> connectionsOpened = new ConcurrentHashMap<>();
+
+    public ConnectionTrackingFilter(MeterRegistry registry,
+                                    @Value("${telemetry.connections.idle-timeout-ms:60000}") long idleTimeoutMs) {
+        this.registry = registry;
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String endpoint = request.getRemoteAddr() + ':' + request.getRemotePort();
+        if (lastSeen.put(endpoint, System.currentTimeMillis()) == null) {
+            String protocol = request.getProtocol();
+            connectionsOpened.computeIfAbsent(protocol, p -> Counter.builder("http.server.connections.opened")
+                    .description("New client connections, estimated from unseen remote endpoints")
+                    .tag("protocol", p)
+                    .register(registry)).increment();
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    @Scheduled(fixedRate = 5000)
+    public void expireIdleEndpoints() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        lastSeen.values().removeIf(seen -> seen < cutoff);
+    }
+}
@@ -0,0 +1,60 @@
+package com.grafana.demo.telemetry;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.grafana.demo.service.JitWarmup;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Records the time from JVM start until the first request has been served,
+ * complementing the {@code application.started.time} and
+ * {@code application.ready.time} gauges published by Spring Boot. The
+ * warm-up's own requests are not counted, only the first real one.
+ */
+@Component
+public class FirstRequestFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(FirstRequestFilter.class);
+
+    private final MeterRegistry registry;
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+    public FirstRequestFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return firstRequestSeen.get() || JitWarmup.isWarmupRequest(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (firstRequestSeen.compareAndSet(false, true)) {
+                long uptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+                TimeGauge.builder("application.first.request.time", () -> uptimeMs, TimeUnit.MILLISECONDS)
+                        .description("Time from JVM start until the first request was served")
+                        .register(registry);
+                logger.info("First request ({} {}) served {} ms after JVM start",
+                        request.getMethod(), request.getRequestURI(), uptimeMs);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.grafana.demo.telemetry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jakarta.annotation.PreDestroy;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Manages a single continuous JFR recording that can be started, dumped to a
+ * local file for offline analysis, and stopped at runtime
+ */
+@Service
+public class FlightRecorderService {
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderService.class);
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path dumpDirectory;
+    private final String settings;
+    private final Duration maxAge;
+
+    private Recording recording;
+
+    public FlightRecorderService(@Value("${telemetry.jfr.dump-dir:recordings}") String dumpDirectory,
+                                 @Value("${telemetry.jfr.settings:profile}") String settings,
+                                 @Value("${telemetry.jfr.max-age-minutes:15}") long maxAgeMinutes) {
+        this.dumpDirectory = Paths.get(dumpDirectory);
+        this.settings = settings;
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+    }
+
+    /**
+     * Starts the continuous recording, if it is not already running
+     */
+    public synchronized Map<String, Object> start() throws IOException, ParseException {
+        if (isRunning()) {
+            return status();
+        }
+
+        recording = new Recording(Configuration.getConfiguration(settings));
+        recording.setName("grafana-demo-continuous");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.start();
+
+        logger.info("Started continuous JFR recording with '{}' settings, max age {}", settings, maxAge);
+        return status();
+    }
+
+    /**
+     * Writes the data recorded so far to a new file in the dump directory,
+     * leaving the recording running
+     */
+    public synchronized Path dump() throws IOException {
+        if (!isRunning()) {
+            throw new IllegalStateException("No JFR recording is running");
+        }
+
+        Files.createDirectories(dumpDirectory);
+        Path file = dumpDirectory.resolve("grafana-demo-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+        recording.dump(file);
+
+        logger.info("Dumped JFR recording to {}", file.toAbsolutePath());
+        return file.toAbsolutePath();
+    }
+
+    /**
+     * Stops and discards the continuous recording
+     */
+    public synchronized Map<String, Object> stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            logger.info("Stopped continuous JFR recording");
+        }
+        return status();
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", isRunning());
+        status.put("settings", settings);
+        status.put("dumpDirectory", dumpDirectory.toAbsolutePath().toString());
+        if (recording != null) {
+            status.put("startTime", String.valueOf(recording.getStartTime()));
+            status.put("size", recording.getSize());
+        }
+        return status;
+    }
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        stop();
+    }
+}
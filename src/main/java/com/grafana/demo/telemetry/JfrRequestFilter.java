@@ -0,0 +1,53 @@
+package com.grafana.demo.telemetry;
+
+import java.io.IOException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.grafana.demo.cache.ResponseCacheFilter;
+import com.grafana.demo.telemetry.event.HttpRequestEvent;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Emits an {@link HttpRequestEvent} around every handled request. When the
+ * event is not enabled in a running recording the fields are never filled and
+ * nothing is committed. Runs ahead of the response cache and the load
+ * shedding filters, so cache hits and shed requests get an event too, with
+ * the outcome in its fields.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 40)
+public class JfrRequestFilter extends OncePerRequestFilter {
+
+    /**
+     * Request attribute a filter sets to name itself when it sheds the request
+     */
+    public static final String SHED_BY_ATTRIBUTE = JfrRequestFilter.class.getName() + ".shedBy";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        HttpRequestEvent event = new HttpRequestEvent();
+        event.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = request.getMethod();
+                event.uri = request.getRequestURI();
+                event.status = response.getStatus();
+                event.cache = response.getHeader(ResponseCacheFilter.CACHE_HEADER);
+                event.shedBy = (String) request.getAttribute(SHED_BY_ATTRIBUTE);
+                event.commit();
+            }
+        }
+    }
+}
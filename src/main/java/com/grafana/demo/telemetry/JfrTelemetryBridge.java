@@ -0,0 +1,199 @@
+package com.grafana.demo.telemetry;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import com.grafana.demo.service.MemoryPattern;
+import com.grafana.demo.service.SimulatorActivity;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Streams GC, allocation and safepoint events from an in-process JFR recording
+ * into Micrometer meters, tagged with the memory pattern that was active when
+ * each event happened (looked up by the event's start time, since the stream
+ * delivers events about a second late).
+ * <p>
+ * Events are consumed on the single JFR stream thread. Meters are resolved once
+ * per tag combination and cached, so handling an event is a map lookup plus an
+ * increment.
+ * <p>
+ * Never lazily initialized, since nothing else references the bridge and the
+ * stream has to be running from startup.
+ */
+@Component
+@Lazy(false)
+@ConditionalOnProperty(prefix = "telemetry.jfr", name = "enabled", havingValue = "true")
+public class JfrTelemetryBridge {
+    private static final Logger logger = LoggerFactory.getLogger(JfrTelemetryBridge.class);
+
+    private static final String GC_EVENT = "jdk.GarbageCollection";
+    private static final String TLAB_EVENT = "jdk.ObjectAllocationInNewTLAB";
+    private static final String OUTSIDE_TLAB_EVENT = "jdk.ObjectAllocationOutsideTLAB";
+    // Its duration is the time needed to bring all threads to the safepoint
+    private static final String SAFEPOINT_EVENT = "jdk.SafepointBegin";
+
+    private final MeterRegistry registry;
+    private final SimulatorActivity activity;
+    private final boolean allocationEvents;
+
+    private final Map<MemoryPattern, PatternMeters> patternMeters = new EnumMap<>(MemoryPattern.class);
+    // Per collector, then per pattern; only touched by the stream thread
+    private final Map<String, Map<MemoryPattern, Timer>> gcPauseTimers = new HashMap<>();
+
+    // Outside-TLAB allocations at or above this size are humongous on G1 (0 when G1 is not in use)
+    private final long humongousThreshold = resolveHumongousThreshold();
+
+    private RecordingStream stream;
+
+    public JfrTelemetryBridge(MeterRegistry registry,
+                              SimulatorActivity activity,
+                              @Value("${telemetry.jfr.allocation-events:true}") boolean allocationEvents) {
+        this.registry = registry;
+        this.activity = activity;
+        this.allocationEvents = allocationEvents;
+
+        for (MemoryPattern pattern : MemoryPattern.values()) {
+            patternMeters.put(pattern, new PatternMeters(registry, pattern));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.setReuse(true);     // Handlers never keep a reference to the event
+        stream.setOrdered(false);  // Aggregation does not depend on event order
+        stream.setMaxAge(Duration.ofSeconds(10));
+
+        stream.enable(GC_EVENT);
+        stream.enable(SAFEPOINT_EVENT).withThreshold(Duration.ZERO);
+        stream.onEvent(GC_EVENT, this::onGarbageCollection);
+        stream.onEvent(SAFEPOINT_EVENT, this::onSafepoint);
+
+        if (allocationEvents) {
+            stream.enable(TLAB_EVENT).withoutStackTrace();
+            stream.enable(OUTSIDE_TLAB_EVENT).withoutStackTrace();
+            stream.onEvent(TLAB_EVENT, this::onNewTlab);
+            stream.onEvent(OUTSIDE_TLAB_EVENT, this::onOutsideTlab);
+        }
+
+        stream.startAsync();
+        logger.info("JFR telemetry bridge started (allocation events: {}, humongous threshold: {} bytes)",
+                allocationEvents, humongousThreshold);
+    }
+
+    private void onGarbageCollection(RecordedEvent event) {
+        MemoryPattern pattern = patternOf(event);
+        String collector = event.getString("name");
+
+        Timer timer = gcPauseTimers.computeIfAbsent(collector, c -> new EnumMap<>(MemoryPattern.class))
+                .computeIfAbsent(pattern, p -> Timer.builder("jfr.gc.pause")
+                        .description("Total stop-the-world pause time per collection, from JFR")
+                        .tag("collector", collector)
+                        .tag("pattern", p.tagValue())
+                        .register(registry));
+        timer.record(event.getDuration("sumOfPauses"));
+    }
+
+    private void onSafepoint(RecordedEvent event) {
+        patternMeters.get(patternOf(event)).safepoint.record(event.getDuration());
+    }
+
+    private void onNewTlab(RecordedEvent event) {
+        patternMeters.get(patternOf(event)).tlabBytes.increment(event.getLong("tlabSize"));
+    }
+
+    private void onOutsideTlab(RecordedEvent event) {
+        PatternMeters meters = patternMeters.get(patternOf(event));
+        long size = event.getLong("allocationSize");
+
+        meters.outsideTlabBytes.increment(size);
+        meters.outsideTlabSize.record(size);
+        if (humongousThreshold > 0 && size >= humongousThreshold) {
+            meters.humongousBytes.increment(size);
+        }
+    }
+
+    private MemoryPattern patternOf(RecordedEvent event) {
+        return activity.getMemoryPatternAt(event.getStartTime());
+    }
+
+    private static long resolveHumongousThreshold() {
+        try {
+            HotSpotDiagnosticMXBean hotspot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            if (!Boolean.parseBoolean(hotspot.getVMOption("UseG1GC").getValue())) {
+                return 0;
+            }
+            return Long.parseLong(hotspot.getVMOption("G1HeapRegionSize").getValue()) / 2;
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * Meters for a single memory pattern, registered up front so the event
+     * handlers never go through the registry
+     */
+    private static final class PatternMeters {
+        private final Counter tlabBytes;
+        private final Counter outsideTlabBytes;
+        private final Counter humongousBytes;
+        private final DistributionSummary outsideTlabSize;
+        private final Timer safepoint;
+
+        private PatternMeters(MeterRegistry registry, MemoryPattern pattern) {
+            String tag = pattern.tagValue();
+            tlabBytes = allocationCounter(registry, tag, "tlab");
+            outsideTlabBytes = allocationCounter(registry, tag, "outside_tlab");
+            // Its own meter: these bytes are already counted under site=outside_tlab
+            humongousBytes = Counter.builder("jfr.allocation.humongous")
+                    .description("Bytes allocated outside a TLAB in humongous (at least half a G1 region) objects")
+                    .baseUnit("bytes")
+                    .tag("pattern", tag)
+                    .register(registry);
+            outsideTlabSize = DistributionSummary.builder("jfr.allocation.outside.tlab.size")
+                    .description("Size of allocations made outside a TLAB")
+                    .baseUnit("bytes")
+                    .tag("pattern", tag)
+                    .register(registry);
+            safepoint = Timer.builder("jfr.safepoint.sync")
+                    .description("Time to reach a safepoint (until all threads are stopped), from JFR")
+                    .tag("pattern", tag)
+                    .register(registry);
+        }
+
+        private static Counter allocationCounter(MeterRegistry registry, String pattern, String site) {
+            return Counter.builder("jfr.allocation")
+                    .description("Bytes allocated, as sampled by JFR allocation events")
+                    .baseUnit("bytes")
+                    .tag("pattern", pattern)
+                    .tag("site", site)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.grafana.demo.telemetry;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import com.grafana.demo.controller.DemoController;
+import com.grafana.demo.service.PayloadMode;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+/**
+ * Measures the CPU time and bytes of binding {@code /data} request bodies to a
+ * {@code Map}, the server side of {@link PayloadMode#MAP}
+ */
+@ControllerAdvice(assignableTypes = DemoController.class)
+public class PayloadCpuAdvice extends RequestBodyAdviceAdapter {
+
+    private final PayloadMetrics metrics;
+
+    public PayloadCpuAdvice(PayloadMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return Map.class.isAssignableFrom(methodParameter.getParameterType());
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) throws IOException {
+        return new MeasuredInputMessage(inputMessage);
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        if (inputMessage instanceof MeasuredInputMessage measured) {
+            metrics.record(PayloadMetrics.Side.SERVER, PayloadMode.MAP,
+                    PayloadMetrics.threadCpuNanos() - measured.startCpuNanos, measured.body.count);
+        }
+        return body;
+    }
+
+    private static final class MeasuredInputMessage implements HttpInputMessage {
+        private final HttpHeaders headers;
+        private final CountingInputStream body;
+        private final long startCpuNanos = PayloadMetrics.threadCpuNanos();
+
+        private MeasuredInputMessage(HttpInputMessage delegate) throws IOException {
+            this.headers = delegate.getHeaders();
+            this.body = new CountingInputStream(delegate.getBody());
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.grafana.demo.telemetry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.grafana.demo.service.PayloadMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * CPU time and bytes spent producing (client) and consuming (server) JSON
+ * payloads, per {@link PayloadMode}. CPU per byte is the ratio of the two
+ * counter rates, e.g.
+ * {@code rate(payload_cpu_seconds_total[1m]) / rate(payload_bytes_total[1m])}.
+ */
+@Component
+public class PayloadMetrics {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Side of the HTTP exchange the payload was handled on
+     */
+    public enum Side { CLIENT, SERVER }
+
+    private final Map<Side, Map<PayloadMode, Meters>> meters = new EnumMap<>(Side.class);
+
+    public PayloadMetrics(MeterRegistry registry) {
+        for (Side side : Side.values()) {
+            Map<PayloadMode, Meters> sideMeters = new EnumMap<>(PayloadMode.class);
+            for (PayloadMode mode : PayloadMode.values()) {
+                sideMeters.put(mode, new Meters(registry, side.name().toLowerCase(), mode.tagValue()));
+            }
+            meters.put(side, sideMeters);
+        }
+    }
+
+    /**
+     * CPU time consumed by the calling thread so far, in nanoseconds
+     */
+    public static long threadCpuNanos() {
+        return THREADS.getCurrentThreadCpuTime();
+    }
+
+    public void record(Side side, PayloadMode mode, long cpuNanos, long bytes) {
+        Meters m = meters.get(side).get(mode);
+        m.cpu.increment(cpuNanos / 1e9);
+        m.bytes.increment(bytes);
+    }
+
+    private static final class Meters {
+        private final Counter cpu;
+        private final Counter bytes;
+
+        private Meters(MeterRegistry registry, String side, String mode) {
+            cpu = Counter.builder("payload.cpu")
+                    .description("Thread CPU time spent writing or parsing JSON payloads")
+                    .baseUnit("seconds")
+                    .tag("side", side)
+                    .tag("mode", mode)
+                    .register(registry);
+            bytes = Counter.builder("payload.bytes")
+                    .description("JSON payload bytes written or parsed")
+                    .baseUnit("bytes")
+                    .tag("side", side)
+                    .tag("mode", mode)
+                    .register(registry);
+        }
+    }
+}
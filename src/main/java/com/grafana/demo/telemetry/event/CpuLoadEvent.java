@@ -0,0 +1,30 @@
+package com.grafana.demo.telemetry.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Spans one CPU load worker started by {@code CpuLoadSimulator}
+ */
+@Name("com.grafana.demo.CpuLoad")
+@Label("CPU Load")
+@Category({"Grafana Demo", "Simulator"})
+@StackTrace(false)
+@Description("A CPU load task run on one core by the CPU simulator")
+public class CpuLoadEvent extends jdk.jfr.Event {
+
+    @Label("Workload")
+    public String workload;
+
+    @Label("Cores")
+    @Description("Number of workers started together with this one")
+    public int cores;
+
+    @Label("Planned Duration")
+    @Timespan(Timespan.MILLISECONDS)
+    public long plannedDuration;
+}
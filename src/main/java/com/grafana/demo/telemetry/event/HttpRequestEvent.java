@@ -0,0 +1,34 @@
+package com.grafana.demo.telemetry.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans the handling of one incoming HTTP request
+ */
+@Name("com.grafana.demo.HttpRequest")
+@Label("HTTP Request")
+@Category({"Grafana Demo", "HTTP"})
+@StackTrace(false)
+public class HttpRequestEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("URI")
+    public String uri;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Cache")
+    @Description("X-Cache result (HIT, MISS or COALESCED), unset when the cache was not consulted")
+    public String cache;
+
+    @Label("Shed By")
+    @Description("What shed the request (memory-pressure or concurrency-limit), unset when it was served")
+    public String shedBy;
+}
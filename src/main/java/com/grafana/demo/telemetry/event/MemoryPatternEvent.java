@@ -0,0 +1,27 @@
+package com.grafana.demo.telemetry.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Spans one run of a {@code MemoryUsageSimulator} pattern
+ */
+@Name("com.grafana.demo.MemoryPattern")
+@Label("Memory Pattern")
+@Category({"Grafana Demo", "Simulator"})
+@StackTrace(false)
+@Description("A memory allocation pattern run by the memory simulator")
+public class MemoryPatternEvent extends jdk.jfr.Event {
+
+    @Label("Pattern")
+    public String pattern;
+
+    @Label("Target Size")
+    @Description("Amount of memory the pattern aimed to allocate or release")
+    @DataAmount
+    public long targetBytes;
+}
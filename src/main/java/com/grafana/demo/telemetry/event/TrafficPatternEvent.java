@@ -0,0 +1,22 @@
+package com.grafana.demo.telemetry.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Marks a traffic pattern switch in {@code HttpTrafficSimulator}
+ */
+@Name("com.grafana.demo.TrafficPatternSwitch")
+@Label("Traffic Pattern Switch")
+@Category({"Grafana Demo", "Simulator"})
+@StackTrace(false)
+public class TrafficPatternEvent extends jdk.jfr.Event {
+
+    @Label("Previous Pattern")
+    public String previousPattern;
+
+    @Label("Pattern")
+    public String pattern;
+}
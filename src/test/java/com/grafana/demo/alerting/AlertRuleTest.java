@@ -0,0 +1,95 @@
+package com.grafana.demo.alerting;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class AlertRuleTest {
+
+    @Test
+    void parsesSelectorComparisonAndDuration() {
+        AlertRule rule = AlertRule.parse("HighCpuUsage1",
+                "system_cpu_usage{application=\"grafana-demo-1\"} > 0.8", "5s");
+
+        assertThat(rule.metric()).isEqualTo("system_cpu_usage");
+        assertThat(rule.matchers()).containsExactly(new AlertRule.LabelMatcher("application", "=", "grafana-demo-1"));
+        assertThat(rule.operator()).isEqualTo(AlertRule.Operator.GT);
+        assertThat(rule.threshold()).isEqualTo(0.8);
+        assertThat(rule.forDuration()).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void parsesEveryMatcherTypeAndEscapedQuotes() {
+        AlertRule rule = AlertRule.parse("Rule",
+                "up{a=\"1\", b!=\"2\",c=~\"x.*\",d!~\"y\\\"z\"} == 0", null);
+
+        assertThat(rule.matchers()).containsExactly(
+                new AlertRule.LabelMatcher("a", "=", "1"),
+                new AlertRule.LabelMatcher("b", "!=", "2"),
+                new AlertRule.LabelMatcher("c", "=~", "x.*"),
+                new AlertRule.LabelMatcher("d", "!~", "y\"z"));
+        assertThat(rule.operator()).isEqualTo(AlertRule.Operator.EQ);
+        assertThat(rule.forDuration()).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void parsesBareSelectorsAndScientificThresholds() {
+        AlertRule rule = AlertRule.parse("Rule", "process_cpu_usage >= 5e-1", "1m");
+
+        assertThat(rule.matchers()).isEmpty();
+        assertThat(rule.operator()).isEqualTo(AlertRule.Operator.GE);
+        assertThat(rule.threshold()).isEqualTo(0.5);
+    }
+
+    @Test
+    void rejectsExpressionsOutsideTheSupportedSubset() {
+        assertThatIllegalArgumentException().isThrownBy(() ->
+                AlertRule.parse("Rate", "rate(http_server_requests_seconds_count[1m]) > 10", null));
+        assertThatIllegalArgumentException().isThrownBy(() ->
+                AlertRule.parse("Join", "a > 1 and b > 1", null));
+        assertThatIllegalArgumentException().isThrownBy(() ->
+                AlertRule.parse("Matcher", "up{application=grafana} == 0", null));
+    }
+
+    @Test
+    void parsesCompoundDurations() {
+        assertThat(AlertRule.parseDuration("1m30s")).isEqualTo(Duration.ofSeconds(90));
+        assertThat(AlertRule.parseDuration("250ms")).isEqualTo(Duration.ofMillis(250));
+        assertThat(AlertRule.parseDuration("1h")).isEqualTo(Duration.ofHours(1));
+        assertThat(AlertRule.parseDuration("2w")).isEqualTo(Duration.ofDays(14));
+        assertThat(AlertRule.parseDuration(" 5s ")).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void rejectsInvalidDurations() {
+        assertThatIllegalArgumentException().isThrownBy(() -> AlertRule.parseDuration("5"));
+        assertThatIllegalArgumentException().isThrownBy(() -> AlertRule.parseDuration("five seconds"));
+        assertThatIllegalArgumentException().isThrownBy(() -> AlertRule.parseDuration("5s later"));
+    }
+
+    @Test
+    void selectsByNameAndLabelsAndComparesTheValue() {
+        AlertRule rule = AlertRule.parse("Rule", "system_cpu_usage{application=~\"grafana-demo-.*\"} > 0.8", null);
+
+        assertThat(rule.isActive(sample("system_cpu_usage", "grafana-demo-1", 0.9))).isTrue();
+        assertThat(rule.isActive(sample("system_cpu_usage", "grafana-demo-1", 0.8))).isFalse();
+        assertThat(rule.selects(sample("system_cpu_usage", "grafana-demo-1", 0.8))).isTrue();
+        assertThat(rule.selects(sample("system_cpu_usage", "other", 0.9))).isFalse();
+        assertThat(rule.selects(sample("process_cpu_usage", "grafana-demo-1", 0.9))).isFalse();
+    }
+
+    @Test
+    void treatsMissingLabelsAsEmpty() {
+        AlertRule rule = AlertRule.parse("Rule", "up{instance=\"\"} == 1", null);
+
+        assertThat(rule.isActive(new PrometheusText.Sample("up", Map.of(), 1))).isTrue();
+    }
+
+    private static PrometheusText.Sample sample(String name, String application, double value) {
+        return new PrometheusText.Sample(name, Map.of("application", application), value);
+    }
+}
@@ -0,0 +1,61 @@
+package com.grafana.demo.alerting;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrometheusTextTest {
+
+    private static final String SCRAPE = """
+            # HELP system_cpu_usage The "recent cpu usage" of the system
+            # TYPE system_cpu_usage gauge
+            system_cpu_usage 0.25
+            # HELP jvm_memory_used_bytes The amount of used memory
+            # TYPE jvm_memory_used_bytes gauge
+            jvm_memory_used_bytes{area="heap",id="G1 Eden Space"} 1.048576E7
+            jvm_memory_used_bytes{area="nonheap",id="Metaspace"} 5.0E7
+            http_server_requests_seconds_count{method="GET",uri="/api/demo/fast"} 12
+            weird_labels{path="a\\"b",text="line\\nbreak",empty=""} NaN
+            limits{bound="upper"} +Inf 1700000000000
+            """;
+
+    @Test
+    void parsesOnlyTheRequestedMetrics() {
+        List<PrometheusText.Sample> samples = PrometheusText.parse(SCRAPE, Set.of("system_cpu_usage",
+                "jvm_memory_used_bytes"));
+
+        assertThat(samples).containsExactly(
+                new PrometheusText.Sample("system_cpu_usage", Map.of(), 0.25),
+                new PrometheusText.Sample("jvm_memory_used_bytes", Map.of("area", "heap", "id", "G1 Eden Space"),
+                        1.048576E7),
+                new PrometheusText.Sample("jvm_memory_used_bytes", Map.of("area", "nonheap", "id", "Metaspace"),
+                        5.0E7));
+    }
+
+    @Test
+    void unescapesLabelValues() {
+        PrometheusText.Sample sample = PrometheusText.parse(SCRAPE, Set.of("weird_labels")).get(0);
+
+        assertThat(sample.labels()).containsExactly(
+                Map.entry("path", "a\"b"), Map.entry("text", "line\nbreak"), Map.entry("empty", ""));
+        assertThat(sample.value()).isNaN();
+    }
+
+    @Test
+    void parsesSpecialValuesAndIgnoresTimestamps() {
+        PrometheusText.Sample sample = PrometheusText.parse(SCRAPE, Set.of("limits")).get(0);
+
+        assertThat(sample.value()).isEqualTo(Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    void skipsCommentsAndBlankLines() {
+        assertThat(PrometheusText.parse("# TYPE up gauge\n\nup 1\n", Set.of("up")))
+                .containsExactly(new PrometheusText.Sample("up", Map.of(), 1));
+        assertThat(PrometheusText.parse("", Set.of("up"))).isEmpty();
+    }
+}
@@ -0,0 +1,89 @@
+package com.grafana.demo.alerting;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleEvaluatorTest {
+
+    private final AlertRule rule = AlertRule.parse("HighCpu", "system_cpu_usage{application=\"a\"} > 0.8", "5s");
+
+    @Test
+    void firesOnceTheExpressionHeldForTheForDuration() {
+        RuleEvaluator evaluator = new RuleEvaluator(rule);
+        evaluator.evaluate(cpu(0.5), 0);
+        evaluator.evaluate(cpu(0.9), 1000);
+        evaluator.evaluate(cpu(0.9), 5000);
+
+        assertThat(evaluator.timeToFire()).isNull();
+
+        evaluator.evaluate(cpu(0.9), 6000);
+        evaluator.evaluate(cpu(0.5), 9000);
+
+        assertThat(evaluator.timeToFire()).isEqualTo(6000);
+        assertThat(evaluator.timeToResolve()).isEqualTo(3000);
+        assertThat(evaluator.firings()).containsExactly(
+                new AlertValidationReport.Firing(Map.of("application", "a"), 1000, 6000, 9000L));
+        assertThat(evaluator.maxValue()).isEqualTo(0.9);
+    }
+
+    @Test
+    void countsPendingAlertsThatClearedBeforeFiring() {
+        RuleEvaluator evaluator = new RuleEvaluator(rule);
+        evaluator.evaluate(cpu(0.9), 0);
+        evaluator.evaluate(cpu(0.5), 3000);
+        evaluator.evaluate(cpu(0.9), 4000);
+
+        assertThat(evaluator.abortedPending()).isEqualTo(1);
+        assertThat(evaluator.firings()).isEmpty();
+    }
+
+    @Test
+    void reportsAlertsStillFiringWithoutAResolveTime() {
+        RuleEvaluator evaluator = new RuleEvaluator(rule);
+        evaluator.evaluate(cpu(0.9), 0);
+        evaluator.evaluate(cpu(0.9), 5000);
+
+        assertThat(evaluator.timeToFire()).isEqualTo(5000);
+        assertThat(evaluator.timeToResolve()).isNull();
+        assertThat(evaluator.firings()).singleElement()
+                .extracting(AlertValidationReport.Firing::resolvedAtMs).isNull();
+    }
+
+    @Test
+    void coarserEvaluationFiresLater() {
+        RuleEvaluator everySample = new RuleEvaluator(rule);
+        RuleEvaluator everyFiveSeconds = new RuleEvaluator(rule);
+        // Load starts at 2.5 s and stays
+        for (long now = 0; now <= 15_000; now += 100) {
+            List<PrometheusText.Sample> samples = cpu(now >= 2500 ? 0.9 : 0.5);
+            everySample.evaluate(samples, now);
+            if (now % 5000 == 0) {
+                everyFiveSeconds.evaluate(samples, now);
+            }
+        }
+
+        assertThat(everySample.timeToFire()).isEqualTo(7500);
+        assertThat(everyFiveSeconds.timeToFire()).isEqualTo(10_000);
+    }
+
+    @Test
+    void remembersWhetherAnySeriesMatched() {
+        RuleEvaluator evaluator = new RuleEvaluator(rule);
+        evaluator.evaluate(List.of(new PrometheusText.Sample("system_cpu_usage", Map.of("application", "b"), 1)), 0);
+
+        assertThat(evaluator.matchedSeries()).isFalse();
+        assertThat(evaluator.maxValue()).isNull();
+
+        evaluator.evaluate(cpu(0.1), 100);
+
+        assertThat(evaluator.matchedSeries()).isTrue();
+    }
+
+    private static List<PrometheusText.Sample> cpu(double value) {
+        return List.of(new PrometheusText.Sample("system_cpu_usage", Map.of("application", "a"), value));
+    }
+}
@@ -0,0 +1,45 @@
+package com.grafana.demo.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FrequencySketchTest {
+
+    @Test
+    void countsIncrementsPerKey() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("hot");
+        }
+        sketch.increment("warm");
+
+        assertThat(sketch.frequency("hot")).isEqualTo(5);
+        assertThat(sketch.frequency("warm")).isEqualTo(1);
+        assertThat(sketch.frequency("cold")).isZero();
+    }
+
+    @Test
+    void saturatesAtFifteen() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("hot");
+        }
+
+        assertThat(sketch.frequency("hot")).isEqualTo(15);
+    }
+
+    @Test
+    void halvesAllCountersOnceTheSampleSizeIsReached() {
+        // 1024 slots, so a sample size of 10240 increments
+        FrequencySketch sketch = new FrequencySketch(1024);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment("hot");
+        }
+        for (int i = 0; i < 10240 - 15; i++) {
+            sketch.increment("key-" + i);
+        }
+
+        assertThat(sketch.frequency("hot")).isEqualTo(7);
+    }
+}
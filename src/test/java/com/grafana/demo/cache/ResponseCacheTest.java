@@ -0,0 +1,120 @@
+package com.grafana.demo.cache;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+    // 128 bytes of estimated overhead, the key and the body
+    private static final int SMALL_BODY = 100;
+    private static final int LARGE_BODY = 10_000;
+
+    private final Map<ResponseCache.EvictionCause, Integer> evictions = new EnumMap<>(ResponseCache.EvictionCause.class);
+
+    @Test
+    void lruEvictsTheLeastRecentlyUsedEntry() {
+        ResponseCache cache = cache(EvictionPolicy.LRU, 500, 0);
+        cache.put("a", response(SMALL_BODY));
+        cache.put("b", response(SMALL_BODY));
+        cache.get("a");
+        cache.put("c", response(SMALL_BODY));
+
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isNotNull();
+        assertThat(evictions).containsEntry(ResponseCache.EvictionCause.SIZE, 1);
+        assertThat(cache.entryCount()).isEqualTo(2);
+    }
+
+    @Test
+    void tracksSizeAcrossReplacements() {
+        ResponseCache cache = cache(EvictionPolicy.LRU, 10_000, 0);
+        cache.put("a", response(SMALL_BODY));
+        cache.put("a", response(2 * SMALL_BODY));
+
+        assertThat(cache.entryCount()).isEqualTo(1);
+        assertThat(cache.sizeBytes()).isEqualTo(128 + 2 + 2 * SMALL_BODY);
+    }
+
+    @Test
+    void doesNotStoreEntriesLargerThanTheCache() {
+        ResponseCache cache = cache(EvictionPolicy.LRU, 500, 0);
+        cache.put("a", response(LARGE_BODY));
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.sizeBytes()).isZero();
+    }
+
+    @Test
+    void ttlPolicyExpiresEntries() throws InterruptedException {
+        ResponseCache cache = cache(EvictionPolicy.TTL, 10_000, 1);
+        cache.put("a", response(SMALL_BODY));
+        Thread.sleep(5);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(evictions).containsEntry(ResponseCache.EvictionCause.EXPIRED, 1);
+        assertThat(cache.sizeBytes()).isZero();
+    }
+
+    @Test
+    void sizeBasedPoliciesIgnoreTheTtl() throws InterruptedException {
+        ResponseCache lru = cache(EvictionPolicy.LRU, 10_000, 1);
+        ResponseCache tinyLfu = cache(EvictionPolicy.TINY_LFU, 100_000, 1);
+        lru.put("a", response(SMALL_BODY));
+        tinyLfu.put("a", response(SMALL_BODY));
+        Thread.sleep(5);
+
+        assertThat(lru.get("a")).isNotNull();
+        assertThat(tinyLfu.get("a")).isNotNull();
+    }
+
+    @Test
+    void tinyLfuKeepsFrequentEntriesAgainstAScanOfOneHitWonders() {
+        assertThat(survivingHotEntries(EvictionPolicy.TINY_LFU)).isEqualTo(9);
+        assertThat(evictions).containsEntry(ResponseCache.EvictionCause.REJECTED, 19);
+    }
+
+    @Test
+    void lruLosesFrequentEntriesToAScan() {
+        assertThat(survivingHotEntries(EvictionPolicy.LRU)).isZero();
+    }
+
+    /**
+     * Fills a cache with room for nine large entries with nine frequently
+     * requested ones, then puts twenty entries that are never requested again
+     */
+    private int survivingHotEntries(EvictionPolicy policy) {
+        ResponseCache cache = cache(policy, 100_000, 0);
+        for (int i = 0; i < 9; i++) {
+            cache.put("hot-" + i, response(LARGE_BODY));
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 9; i++) {
+                cache.get("hot-" + i);
+            }
+        }
+        for (int i = 0; i < 20; i++) {
+            cache.put("scan-" + i, response(LARGE_BODY));
+        }
+
+        int surviving = 0;
+        for (int i = 0; i < 9; i++) {
+            if (cache.get("hot-" + i) != null) {
+                surviving++;
+            }
+        }
+        return surviving;
+    }
+
+    private ResponseCache cache(EvictionPolicy policy, long maxBytes, long ttlMillis) {
+        return new ResponseCache(policy, maxBytes, ttlMillis, cause -> evictions.merge(cause, 1, Integer::sum));
+    }
+
+    private static CachedResponse response(int bodyBytes) {
+        return new CachedResponse(200, "application/json", new byte[bodyBytes]);
+    }
+}
@@ -0,0 +1,61 @@
+package com.grafana.demo.capture;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReservoirSamplerTest {
+
+    @Test
+    void keepsEverythingUntilTheReservoirIsFull() {
+        ReservoirSampler<Integer> sampler = new ReservoirSampler<>(10);
+        IntStream.range(0, 7).forEach(sampler::offer);
+
+        ReservoirSampler.Sample<Integer> sample = sampler.drain();
+
+        assertThat(sample.items()).containsExactly(0, 1, 2, 3, 4, 5, 6);
+        assertThat(sample.seen()).isEqualTo(7);
+    }
+
+    @Test
+    void keepsAFixedSizeSampleOfLargerStreams() {
+        ReservoirSampler<Integer> sampler = new ReservoirSampler<>(10);
+        IntStream.range(0, 1000).forEach(sampler::offer);
+
+        ReservoirSampler.Sample<Integer> sample = sampler.drain();
+
+        assertThat(sample.items()).hasSize(10).doesNotHaveDuplicates().allMatch(item -> item >= 0 && item < 1000);
+        assertThat(sample.seen()).isEqualTo(1000);
+    }
+
+    @Test
+    void drainStartsANewSample() {
+        ReservoirSampler<Integer> sampler = new ReservoirSampler<>(10);
+        IntStream.range(0, 50).forEach(sampler::offer);
+        sampler.drain();
+        sampler.offer(99);
+
+        ReservoirSampler.Sample<Integer> sample = sampler.drain();
+
+        assertThat(sample.items()).containsExactly(99);
+        assertThat(sample.seen()).isEqualTo(1);
+    }
+
+    @Test
+    void everyItemIsEquallyLikelyToBeSampled() {
+        int items = 100;
+        int rounds = 10_000;
+        int[] picked = new int[items];
+        ReservoirSampler<Integer> sampler = new ReservoirSampler<>(10);
+        for (int round = 0; round < rounds; round++) {
+            IntStream.range(0, items).forEach(sampler::offer);
+            sampler.drain().items().forEach(item -> picked[item]++);
+        }
+
+        // Expected 1000 picks each, with a standard deviation of 30
+        assertThat(IntStream.of(picked).min().getAsInt()).isGreaterThanOrEqualTo(850);
+        assertThat(IntStream.of(picked).max().getAsInt()).isLessThanOrEqualTo(1150);
+    }
+}
@@ -0,0 +1,83 @@
+package com.grafana.demo.capture;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+class TrafficLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        Path file = directory.resolve("capture.bin");
+        List<TrafficRecord> records = List.of(
+                new TrafficRecord("GET", "/fast?item=7", 0, 1_500_000, 2.5f),
+                new TrafficRecord("POST", "/data", 2048, 0, 1f),
+                new TrafficRecord("DELETE", "/data/warmup-1", 0, 250_000_000, 10f));
+
+        try (TrafficLogWriter writer = new TrafficLogWriter(file, 4096)) {
+            for (TrafficRecord record : records) {
+                assertThat(writer.append(record)).isEqualTo(TrafficLogWriter.AppendResult.WRITTEN);
+            }
+        }
+
+        assertThat(TrafficLog.read(file)).isEqualTo(records);
+    }
+
+    @Test
+    void storesInterArrivalTimesWithMicrosecondPrecision() throws IOException {
+        Path file = directory.resolve("capture.bin");
+        try (TrafficLogWriter writer = new TrafficLogWriter(file, 4096)) {
+            writer.append(new TrafficRecord("GET", "/fast", 0, 1_234_567, 1f));
+        }
+
+        assertThat(TrafficLog.read(file).get(0).interArrivalNanos()).isEqualTo(1_234_000);
+    }
+
+    @Test
+    void reportsUnsupportedMethodsWithoutWritingThem() throws IOException {
+        Path file = directory.resolve("capture.bin");
+        try (TrafficLogWriter writer = new TrafficLogWriter(file, 4096)) {
+            int before = writer.sizeBytes();
+
+            assertThat(writer.append(new TrafficRecord("TRACE", "/fast", 0, 0, 1f)))
+                    .isEqualTo(TrafficLogWriter.AppendResult.UNSUPPORTED);
+            assertThat(writer.sizeBytes()).isEqualTo(before);
+            assertThat(writer.append(new TrafficRecord("GET", "/fast", 0, 0, 1f)))
+                    .isEqualTo(TrafficLogWriter.AppendResult.WRITTEN);
+        }
+
+        assertThat(TrafficLog.read(file)).extracting(TrafficRecord::method).containsExactly("GET");
+    }
+
+    @Test
+    void reportsAFullFile() throws IOException {
+        Path file = directory.resolve("capture.bin");
+        int capacity = TrafficLog.HEADER_BYTES + 2 * (TrafficLog.RECORD_HEADER_BYTES + "/fast".length());
+        try (TrafficLogWriter writer = new TrafficLogWriter(file, capacity)) {
+            TrafficRecord record = new TrafficRecord("GET", "/fast", 0, 0, 1f);
+
+            assertThat(writer.append(record)).isEqualTo(TrafficLogWriter.AppendResult.WRITTEN);
+            assertThat(writer.append(record)).isEqualTo(TrafficLogWriter.AppendResult.WRITTEN);
+            assertThat(writer.append(record)).isEqualTo(TrafficLogWriter.AppendResult.FULL);
+        }
+
+        assertThat(TrafficLog.read(file)).hasSize(2);
+    }
+
+    @Test
+    void rejectsFilesThatAreNotCaptures() throws IOException {
+        Path file = Files.writeString(directory.resolve("other.bin"), "definitely not a capture");
+
+        assertThatIOException().isThrownBy(() -> TrafficLog.read(file));
+    }
+}
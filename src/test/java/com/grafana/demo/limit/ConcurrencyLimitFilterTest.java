@@ -0,0 +1,49 @@
+package com.grafana.demo.limit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    @Test
+    void groupsRequestsByEndpoint() {
+        assertThat(ConcurrencyLimitFilter.groupOf("/api/demo/slow"))
+                .isEqualTo(ConcurrencyLimitFilter.EndpointGroup.SLOW);
+        assertThat(ConcurrencyLimitFilter.groupOf("/api/demo/flaky"))
+                .isEqualTo(ConcurrencyLimitFilter.EndpointGroup.FLAKY);
+        assertThat(ConcurrencyLimitFilter.groupOf("/api/demo/data/stream/1"))
+                .isEqualTo(ConcurrencyLimitFilter.EndpointGroup.DATA);
+        assertThat(ConcurrencyLimitFilter.groupOf("/api/demo/fast")).isNull();
+        assertThat(ConcurrencyLimitFilter.groupOf("/actuator/prometheus")).isNull();
+    }
+
+    @Test
+    void measuresQueueWaitFromTheRequestStartHeader() {
+        long sentMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() - 250);
+
+        long waitNanos = ConcurrencyLimitFilter.queueWaitNanos(request("t=" + sentMicros));
+
+        assertThat(waitNanos).isBetween(TimeUnit.MILLISECONDS.toNanos(250), TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void ignoresMissingMalformedAndImplausibleRequestStarts() {
+        long nowMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+
+        assertThat(ConcurrencyLimitFilter.queueWaitNanos(new MockHttpServletRequest())).isZero();
+        assertThat(ConcurrencyLimitFilter.queueWaitNanos(request("t=soon"))).isZero();
+        assertThat(ConcurrencyLimitFilter.queueWaitNanos(request(String.valueOf(nowMicros)))).isZero();
+        assertThat(ConcurrencyLimitFilter.queueWaitNanos(request("t=" + (nowMicros + 10_000_000)))).isZero();
+        assertThat(ConcurrencyLimitFilter.queueWaitNanos(request("t=" + (nowMicros - 3_600_000_000L)))).isZero();
+    }
+
+    private static MockHttpServletRequest request(String requestStart) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(ConcurrencyLimitFilter.REQUEST_START_HEADER, requestStart);
+        return request;
+    }
+}
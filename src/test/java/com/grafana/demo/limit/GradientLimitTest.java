@@ -0,0 +1,105 @@
+package com.grafana.demo.limit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void rejectsOnceTheLimitIsInFlight() {
+        GradientLimit limit = new GradientLimit(3, 1, 10);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+        assertThat(limit.getInFlight()).isEqualTo(3);
+
+        limit.release(FAST);
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsUpToTheMaximumWhileSaturated() {
+        GradientLimit limit = new GradientLimit(20, 4, 50);
+
+        for (int i = 0; i < 200; i++) {
+            while (limit.tryAcquire()) {
+                // Take every free slot
+            }
+            limit.release(FAST);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(50);
+    }
+
+    @Test
+    void stopsGrowingOnceLessThanHalfTheLimitIsInUse() {
+        GradientLimit limit = new GradientLimit(20, 4, 50);
+        holdInFlight(limit, 15);
+
+        for (int i = 0; i < 200; i++) {
+            limit.tryAcquire();
+            limit.release(FAST);
+        }
+
+        // 16 in flight at each release
+        assertThat(limit.getLimit()).isGreaterThan(20).isLessThanOrEqualTo(32);
+    }
+
+    @Test
+    void doesNotGrowWhileUnderUtilized() {
+        GradientLimit limit = new GradientLimit(20, 4, 50);
+
+        for (int i = 0; i < 200; i++) {
+            limit.tryAcquire();
+            limit.release(FAST);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesEvenWhileUnderUtilized() {
+        GradientLimit limit = new GradientLimit(20, 4, 50);
+        for (int i = 0; i < 600; i++) {
+            limit.tryAcquire();
+            limit.release(FAST);
+        }
+
+        limit.tryAcquire();
+        limit.release(SLOW);
+
+        assertThat(limit.getLimit()).isLessThan(20);
+    }
+
+    @Test
+    void neverShrinksBelowTheMinimum() {
+        GradientLimit limit = new GradientLimit(20, 4, 50);
+        for (int i = 0; i < 600; i++) {
+            limit.tryAcquire();
+            limit.release(FAST);
+        }
+
+        long latency = SLOW;
+        for (int i = 0; i < 200; i++) {
+            limit.tryAcquire();
+            limit.release(latency);
+            latency *= 2;
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(4);
+    }
+
+    private static void holdInFlight(GradientLimit limit, int requests) {
+        for (int i = 0; i < requests; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+    }
+}
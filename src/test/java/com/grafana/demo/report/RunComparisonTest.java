@@ -0,0 +1,114 @@
+package com.grafana.demo.report;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class RunComparisonTest {
+
+    private static final String SLOW = "GET /api/demo/slow";
+
+    @Test
+    void identicalRunsHaveNoDifferences() {
+        RunReport run = run("baseline", phase("steady", 0.5, 100, endpoint(1000, 50, 120, 0)));
+
+        Map<String, Object> result = RunComparison.compare(run, run, 0.1);
+
+        assertThat(result).containsEntry("regressed", false);
+        assertThat(differences(result)).isEmpty();
+        assertThat(result.get("unmatchedPhases")).asList().isEmpty();
+    }
+
+    @Test
+    void flagsChangesAboveTheThresholdInTheWorseDirection() {
+        RunReport baseline = run("baseline", phase("steady", 0.5, 100, endpoint(1000, 50, 100, 0)));
+        RunReport candidate = run("candidate", phase("steady", 0.52, 150, endpoint(1000, 40, 130, 0)));
+
+        Map<String, Object> result = RunComparison.compare(baseline, candidate, 0.1);
+
+        assertThat(result).containsEntry("regressed", true);
+        assertThat(differences(result)).extracting(RunComparison.Difference::metric, RunComparison.Difference::regression)
+                .contains(
+                        tuple("cpuUsage", false),
+                        tuple("gcPauseMillis", true),
+                        tuple(SLOW + " rps", true),
+                        tuple(SLOW + " p99Millis", true));
+    }
+
+    @Test
+    void improvementsAreNotRegressions() {
+        RunReport baseline = run("baseline", phase("steady", 0.5, 100, endpoint(1000, 50, 130, 0.05)));
+        RunReport candidate = run("candidate", phase("steady", 0.3, 50, endpoint(1000, 80, 100, 0)));
+
+        Map<String, Object> result = RunComparison.compare(baseline, candidate, 0.1);
+
+        assertThat(result).containsEntry("regressed", false);
+        assertThat(differences(result)).isNotEmpty().noneMatch(RunComparison.Difference::regression);
+    }
+
+    @Test
+    void comparesErrorRatesInAbsolutePoints() {
+        RunReport baseline = run("baseline", phase("steady", 0.5, 100, endpoint(1000, 50, 100, 0.01)));
+        RunReport small = run("small", phase("steady", 0.5, 100, endpoint(1000, 50, 100, 0.05)));
+        RunReport large = run("large", phase("steady", 0.5, 100, endpoint(1000, 50, 100, 0.2)));
+
+        assertThat(RunComparison.compare(baseline, small, 0.1)).containsEntry("regressed", false);
+        assertThat(RunComparison.compare(baseline, large, 0.1)).containsEntry("regressed", true);
+    }
+
+    @Test
+    void skipsPercentilesOfEndpointsWithTooFewRequests() {
+        long few = RunComparison.MIN_REQUESTS_FOR_PERCENTILES - 1;
+        RunReport baseline = run("baseline", phase("steady", 0.5, 100, endpoint(few, 50, 100, 0)));
+        RunReport candidate = run("candidate", phase("steady", 0.5, 100, endpoint(few, 50, 500, 0)));
+
+        Map<String, Object> result = RunComparison.compare(baseline, candidate, 0.1);
+
+        assertThat(result).containsEntry("regressed", false);
+        assertThat(differences(result)).isEmpty();
+    }
+
+    @Test
+    void matchesPhasesByNameThenGeneratedNamesByPosition() {
+        RunReport baseline = run("baseline",
+                phase("warmup", 0.5, 100, endpoint(1000, 50, 100, 0)),
+                phase("phase-2", 0.5, 100, endpoint(1000, 50, 100, 0)));
+        RunReport candidate = run("candidate",
+                phase("spike", 0.5, 100, endpoint(1000, 50, 100, 0)),
+                phase("phase-1", 0.5, 300, endpoint(1000, 50, 100, 0)),
+                phase("warmup", 0.5, 100, endpoint(1000, 50, 100, 0)));
+
+        Map<String, Object> result = RunComparison.compare(baseline, candidate, 0.1);
+
+        assertThat(result.get("unmatchedPhases")).asList().containsExactly("spike");
+        assertThat(differences(result)).singleElement()
+                .satisfies(difference -> {
+                    assertThat(difference.phase()).isEqualTo("phase-1");
+                    assertThat(difference.metric()).isEqualTo("gcPauseMillis");
+                    assertThat(difference.change()).isEqualTo(2.0);
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<RunComparison.Difference> differences(Map<String, Object> result) {
+        return (List<RunComparison.Difference>) result.get("differences");
+    }
+
+    private static RunReport run(String name, RunReport.PhaseSnapshot... phases) {
+        return new RunReport(name, 0, List.of(phases));
+    }
+
+    private static RunReport.PhaseSnapshot phase(String name, double cpuUsage, long gcPauseMillis,
+                                                 RunReport.EndpointSnapshot slow) {
+        return new RunReport.PhaseSnapshot(name, 0, 60_000, Map.of(SLOW, slow), cpuUsage,
+                200_000_000, 300_000_000, gcPauseMillis, 10, 50);
+    }
+
+    private static RunReport.EndpointSnapshot endpoint(long requests, double rps, double p99Millis, double errorRate) {
+        return new RunReport.EndpointSnapshot(requests, rps, 20, p99Millis, p99Millis * 2, errorRate);
+    }
+}
@@ -0,0 +1,59 @@
+package com.grafana.demo.retention;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.within;
+
+class LifetimeDistributionTest {
+
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    void fixedAlwaysReturnsTheSameLifetime() {
+        LifetimeDistribution distribution = LifetimeDistribution.parse("fixed:250");
+        SplittableRandom random = new SplittableRandom(1);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(distribution.sampleMillis(random)).isEqualTo(250);
+        }
+    }
+
+    @Test
+    void exponentialHasTheConfiguredMean() {
+        assertThat(mean(LifetimeDistribution.parse("exponential:1000"))).isCloseTo(1000, within(20.0));
+    }
+
+    @Test
+    void bimodalMixesTheTwoMeans() {
+        double expected = 0.9 * 100 + 0.1 * 30000;
+
+        assertThat(mean(LifetimeDistribution.parse("bimodal:100:30000:0.1"))).isCloseTo(expected, within(150.0));
+    }
+
+    @Test
+    void specsAreTrimmedAndCaseInsensitive() {
+        assertThat(LifetimeDistribution.parse(" Fixed:5 ").sampleMillis(new SplittableRandom())).isEqualTo(5);
+    }
+
+    @Test
+    void rejectsInvalidSpecs() {
+        assertThatIllegalArgumentException().isThrownBy(() -> LifetimeDistribution.parse("uniform:10"));
+        assertThatIllegalArgumentException().isThrownBy(() -> LifetimeDistribution.parse("bimodal:100:200"));
+        assertThatIllegalArgumentException().isThrownBy(() -> LifetimeDistribution.parse("fixed:soon"));
+    }
+
+    private static double mean(LifetimeDistribution distribution) {
+        SplittableRandom random = new SplittableRandom(42);
+        long sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            long sample = distribution.sampleMillis(random);
+            assertThat(sample).isNotNegative();
+            sum += sample;
+        }
+        return (double) sum / SAMPLES;
+    }
+}
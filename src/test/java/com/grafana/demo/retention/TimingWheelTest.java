@@ -0,0 +1,82 @@
+package com.grafana.demo.retention;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class TimingWheelTest {
+
+    @Test
+    void expiresValuesOnceTheirTickHasPassed() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+        wheel.schedule("a", 25);
+        wheel.schedule("b", 45);
+        List<String> expired = new ArrayList<>();
+
+        assertThat(wheel.advance(19, expired::add)).isZero();
+        assertThat(wheel.advance(29, expired::add)).isEqualTo(1);
+        assertThat(expired).containsExactly("a");
+        assertThat(wheel.advance(49, expired::add)).isEqualTo(1);
+        assertThat(expired).containsExactly("a", "b");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void skipsValuesDueInALaterRevolution() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        wheel.schedule("near", 10);
+        // Same slot as "near", one revolution later
+        wheel.schedule("far", 50);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(10, expired::add);
+        assertThat(expired).containsExactly("near");
+        assertThat(wheel.size()).isEqualTo(1);
+
+        wheel.advance(50, expired::add);
+        assertThat(expired).containsExactly("near", "far");
+    }
+
+    @Test
+    void pastTimesExpireOnTheNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 100);
+        wheel.schedule("late", 30);
+        List<String> expired = new ArrayList<>();
+
+        assertThat(wheel.advance(105, expired::add)).isZero();
+        assertThat(wheel.advance(110, expired::add)).isEqualTo(1);
+        assertThat(expired).containsExactly("late");
+    }
+
+    @Test
+    void catchesUpAfterFallingBehindByMoreThanARevolution() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 4, 0);
+        for (int i = 1; i <= 20; i++) {
+            wheel.schedule(i, i * 10L);
+        }
+        List<Integer> expired = new ArrayList<>();
+
+        assertThat(wheel.advance(1000, expired::add)).isEqualTo(20);
+        assertThat(expired).containsExactlyInAnyOrder(
+                1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void doesNotGoBackInTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 100);
+        wheel.schedule("a", 150);
+
+        assertThat(wheel.advance(50, value -> { })).isZero();
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsSlotCountsThatAreNotAPowerOfTwo() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new TimingWheel<>(10, 6, 0));
+    }
+}
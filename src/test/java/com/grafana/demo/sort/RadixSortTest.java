@@ -0,0 +1,92 @@
+package com.grafana.demo.sort;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RadixSortTest {
+
+    private static final int SIZE = 10_000;
+
+    @ParameterizedTest
+    @EnumSource(InputDistribution.class)
+    void sortsIntsLikeArraysSort(InputDistribution distribution) {
+        long[] generated = distribution.generate(SIZE, new SplittableRandom(7));
+        int[] values = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            values[i] = (int) (generated[i] >> 32);
+        }
+
+        assertSortsInts(values);
+    }
+
+    @ParameterizedTest
+    @EnumSource(InputDistribution.class)
+    void sortsLongsLikeArraysSort(InputDistribution distribution) {
+        assertSortsLongs(distribution.generate(SIZE, new SplittableRandom(7)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(InputDistribution.class)
+    void sortsDirectBuffersLikeArraysSort(InputDistribution distribution) {
+        long[] values = distribution.generate(SIZE, new SplittableRandom(7));
+        // Larger than the input, as the reused working buffers are
+        LongBuffer buffer = direct(SIZE + 16);
+        buffer.put(0, values);
+
+        RadixSort.sort(buffer, direct(SIZE + 16), SIZE);
+
+        long[] sorted = new long[SIZE];
+        buffer.get(0, sorted);
+        long[] expected = values.clone();
+        Arrays.sort(expected);
+        assertThat(sorted).isEqualTo(expected);
+    }
+
+    @Test
+    void ordersNegativeValuesBeforePositiveOnes() {
+        assertSortsInts(new int[] { 3, -1, Integer.MAX_VALUE, 0, Integer.MIN_VALUE, -256, 256 });
+        assertSortsLongs(new long[] { 3, -1, Long.MAX_VALUE, 0, Long.MIN_VALUE, -(1L << 40), 1L << 40 });
+    }
+
+    @Test
+    void handlesEmptyAndUniformInputs() {
+        assertSortsInts(new int[0]);
+        assertSortsLongs(new long[0]);
+        int[] same = new int[100];
+        Arrays.fill(same, 42);
+        assertSortsInts(same);
+    }
+
+    private static void assertSortsInts(int[] values) {
+        int[] expected = values.clone();
+        Arrays.sort(expected);
+        int[] actual = values.clone();
+
+        RadixSort.sort(actual, new int[actual.length]);
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    private static void assertSortsLongs(long[] values) {
+        long[] expected = values.clone();
+        Arrays.sort(expected);
+        long[] actual = values.clone();
+
+        RadixSort.sort(actual, new long[actual.length]);
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    private static LongBuffer direct(int elements) {
+        return ByteBuffer.allocateDirect(elements * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+}